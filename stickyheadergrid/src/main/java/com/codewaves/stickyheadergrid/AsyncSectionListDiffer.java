@@ -0,0 +1,379 @@
+package com.codewaves.stickyheadergrid;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.util.ListUpdateCallback;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Helper for computing the difference between two section lists on a background thread and
+ * dispatching granular notifications to a {@link StickyHeaderGridAdapter} on the main thread.
+ *
+ * <p>Sections are compared first, without move detection. Items are compared only inside the
+ * sections considered the same, so headers and items never match each other. The adapter should
+ * read its data from {@link #getCurrentList()}, for example:</p>
+ *
+ * <pre>
+ * public int getSectionCount() {
+ *    return mDiffer.getSectionCount();
+ * }
+ *
+ * public int getSectionItemCount(int section) {
+ *    return mDiffer.getSectionItemCount(section);
+ * }
+ * </pre>
+ *
+ * <p>Submitted lists and the item lists of their sections must not be modified afterwards,
+ * they are read from the background thread.</p>
+ *
+ * @param <S> Type of the sections
+ * @param <T> Type of the section items
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class AsyncSectionListDiffer<S, T> {
+   public static final String TAG = "AsyncSectionListDiffer";
+
+   private static final Object sExecutorLock = new Object();
+   private static ExecutorService sDiffExecutor;
+
+   private final StickyHeaderGridAdapter mAdapter;
+   private final SectionItemCallback<S, T> mCallback;
+   private final Executor mBackgroundExecutor;
+   private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+   private List<S> mList;
+   private List<S> mReadOnlyList = Collections.emptyList();
+   private int mMaxScheduledGeneration;
+
+   /**
+    * Callback used to compare sections and items of two section lists.
+    *
+    * @param <S> Type of the sections
+    * @param <T> Type of the section items
+    */
+   public static abstract class SectionItemCallback<S, T> {
+      /**
+       * Returns items of the <code>section</code>.
+       *
+       * @param section section to query
+       * @return The item list of the section.
+       */
+      public abstract List<T> getSectionItems(S section);
+
+      /**
+       * Called to check whether two sections represent the same section, usually by comparing
+       * their ids.
+       *
+       * @param oldSection section in the old list
+       * @param newSection section in the new list
+       * @return True if the two sections represent the same section.
+       */
+      public abstract boolean areSectionsTheSame(S oldSection, S newSection);
+
+      /**
+       * Called to check whether two sections have the same header data. Items are compared
+       * separately.
+       *
+       * @param oldSection section in the old list
+       * @param newSection section in the new list
+       * @return True if the header of the section did not change.
+       */
+      public abstract boolean areSectionContentsTheSame(S oldSection, S newSection);
+
+      /**
+       * Called to check whether two items represent the same item.
+       *
+       * @param oldItem item in the old list
+       * @param newItem item in the new list
+       * @return True if the two items represent the same item.
+       */
+      public abstract boolean areItemsTheSame(T oldItem, T newItem);
+
+      /**
+       * Called to check whether two items have the same data.
+       *
+       * @param oldItem item in the old list
+       * @param newItem item in the new list
+       * @return True if the contents of the items are the same.
+       */
+      public abstract boolean areItemContentsTheSame(T oldItem, T newItem);
+   }
+
+   /**
+    * Creates a differ that computes the difference on a shared background executor.
+    *
+    * @param adapter adapter to notify about changes
+    * @param callback callback to compare sections and items
+    */
+   public AsyncSectionListDiffer(@NonNull StickyHeaderGridAdapter adapter, @NonNull SectionItemCallback<S, T> callback) {
+      this(adapter, callback, getDefaultExecutor());
+   }
+
+   /**
+    * Creates a differ that computes the difference on provided executor.
+    *
+    * @param adapter adapter to notify about changes
+    * @param callback callback to compare sections and items
+    * @param backgroundExecutor executor used to compute the difference
+    */
+   public AsyncSectionListDiffer(@NonNull StickyHeaderGridAdapter adapter, @NonNull SectionItemCallback<S, T> callback,
+                                 @NonNull Executor backgroundExecutor) {
+      mAdapter = adapter;
+      mCallback = callback;
+      mBackgroundExecutor = backgroundExecutor;
+   }
+
+   /**
+    * Returns the current section list. Never modify the returned list, submit a new one instead.
+    *
+    * @return The current section list, or an empty list if nothing was submitted.
+    */
+   @NonNull
+   public List<S> getCurrentList() {
+      return mReadOnlyList;
+   }
+
+   public int getSectionCount() {
+      return mReadOnlyList.size();
+   }
+
+   public S getSection(int section) {
+      return mReadOnlyList.get(section);
+   }
+
+   public int getSectionItemCount(int section) {
+      return mCallback.getSectionItems(mReadOnlyList.get(section)).size();
+   }
+
+   public T getSectionItem(int section, int offset) {
+      return mCallback.getSectionItems(mReadOnlyList.get(section)).get(offset);
+   }
+
+   /**
+    * Submits a new section list. The difference is computed on the background executor and the
+    * adapter is notified on the main thread. If another list is submitted before the difference is
+    * computed, the pending result is dropped.
+    *
+    * @param newList the new section list, or null to clear
+    */
+   public void submitList(@Nullable final List<S> newList) {
+      final int runGeneration = ++mMaxScheduledGeneration;
+
+      if (newList == mList) {
+         return;
+      }
+
+      if (newList == null) {
+         // Make sure the section index describes the old list before removing its sections
+         mAdapter.getItemCount();
+         final int removedCount = mReadOnlyList.size();
+         mList = null;
+         mReadOnlyList = Collections.emptyList();
+
+         mAdapter.beginBatchUpdate();
+         try {
+            for (int i = 0; i < removedCount; ++i) {
+               mAdapter.notifySectionRemoved(0);
+            }
+         }
+         finally {
+            mAdapter.endBatchUpdate();
+         }
+         return;
+      }
+
+      if (mList == null) {
+         mList = newList;
+         mReadOnlyList = Collections.unmodifiableList(newList);
+         mAdapter.notifyAllSectionsDataSetChanged();
+         return;
+      }
+
+      final List<S> oldList = mList;
+      mBackgroundExecutor.execute(new Runnable() {
+         @Override
+         public void run() {
+            final SectionDiff diff = calculateDiff(oldList, newList);
+            mMainHandler.post(new Runnable() {
+               @Override
+               public void run() {
+                  if (mMaxScheduledGeneration == runGeneration) {
+                     latchList(newList, diff);
+                  }
+               }
+            });
+         }
+      });
+   }
+
+   private SectionDiff calculateDiff(final List<S> oldList, final List<S> newList) {
+      final SectionDiff diff = new SectionDiff(oldList.size(), newList.size());
+      diff.sections = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+         @Override
+         public int getOldListSize() {
+            return oldList.size();
+         }
+
+         @Override
+         public int getNewListSize() {
+            return newList.size();
+         }
+
+         @Override
+         public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return mCallback.areSectionsTheSame(oldList.get(oldItemPosition), newList.get(newItemPosition));
+         }
+
+         @Override
+         public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            return mCallback.areSectionContentsTheSame(oldList.get(oldItemPosition), newList.get(newItemPosition));
+         }
+      }, false);
+
+      for (int i = 0, n = oldList.size(); i < n; ++i) {
+         diff.oldItemCounts[i] = mCallback.getSectionItems(oldList.get(i)).size();
+      }
+
+      for (int i = 0, n = newList.size(); i < n; ++i) {
+         final S newSection = newList.get(i);
+         final List<T> newItems = mCallback.getSectionItems(newSection);
+         diff.newItemCounts[i] = newItems.size();
+
+         final int oldPosition = diff.sections.convertNewPositionToOld(i);
+         if (oldPosition == DiffUtil.DiffResult.NO_POSITION) {
+            continue;
+         }
+
+         final S oldSection = oldList.get(oldPosition);
+         final List<T> oldItems = mCallback.getSectionItems(oldSection);
+         diff.headerChanged[i] = !mCallback.areSectionContentsTheSame(oldSection, newSection);
+         if (oldItems != newItems) {
+            diff.items[i] = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+               @Override
+               public int getOldListSize() {
+                  return oldItems.size();
+               }
+
+               @Override
+               public int getNewListSize() {
+                  return newItems.size();
+               }
+
+               @Override
+               public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                  return mCallback.areItemsTheSame(oldItems.get(oldItemPosition), newItems.get(newItemPosition));
+               }
+
+               @Override
+               public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                  return mCallback.areItemContentsTheSame(oldItems.get(oldItemPosition), newItems.get(newItemPosition));
+               }
+            });
+         }
+      }
+
+      return diff;
+   }
+
+   private void latchList(List<S> newList, SectionDiff diff) {
+      // Updates go through the section aware notify methods, which update the section index
+      // incrementally, so it must describe the old list first
+      mAdapter.getItemCount();
+      mList = newList;
+      mReadOnlyList = Collections.unmodifiableList(newList);
+
+      // Sections are diffed without moves, so matched sections keep their order. Walk both lists
+      // once, all sections before the current one already match the new list.
+      final SectionCallback itemCallback = new SectionCallback();
+      int oldSection = 0;
+      mAdapter.beginBatchUpdate();
+      try {
+         for (int newSection = 0; newSection < diff.newItemCounts.length; ++newSection) {
+            final int matchedSection = diff.sections.convertNewPositionToOld(newSection);
+            if (matchedSection == DiffUtil.DiffResult.NO_POSITION) {
+               mAdapter.notifySectionInserted(newSection);
+               continue;
+            }
+
+            for (; oldSection < matchedSection; ++oldSection) {
+               mAdapter.notifySectionRemoved(newSection);
+            }
+            oldSection = matchedSection + 1;
+
+            if (diff.headerChanged[newSection]) {
+               mAdapter.notifySectionHeaderChanged(newSection);
+            }
+
+            if (diff.items[newSection] != null) {
+               itemCallback.section = newSection;
+               diff.items[newSection].dispatchUpdatesTo(itemCallback);
+            }
+         }
+
+         for (; oldSection < diff.oldItemCounts.length; ++oldSection) {
+            mAdapter.notifySectionRemoved(diff.newItemCounts.length);
+         }
+      }
+      finally {
+         mAdapter.endBatchUpdate();
+      }
+   }
+
+   private static Executor getDefaultExecutor() {
+      synchronized (sExecutorLock) {
+         if (sDiffExecutor == null) {
+            sDiffExecutor = Executors.newFixedThreadPool(2);
+         }
+      }
+      return sDiffExecutor;
+   }
+
+   private static class SectionDiff {
+      private DiffUtil.DiffResult sections;
+      private final DiffUtil.DiffResult[] items;
+      private final boolean[] headerChanged;
+      private final int[] oldItemCounts;
+      private final int[] newItemCounts;
+
+      SectionDiff(int oldSectionCount, int newSectionCount) {
+         items = new DiffUtil.DiffResult[newSectionCount];
+         headerChanged = new boolean[newSectionCount];
+         oldItemCounts = new int[oldSectionCount];
+         newItemCounts = new int[newSectionCount];
+      }
+   }
+
+   private class SectionCallback implements ListUpdateCallback {
+      private int section;
+
+      @Override
+      public void onInserted(int position, int count) {
+         mAdapter.notifySectionItemRangeInserted(section, position, count);
+      }
+
+      @Override
+      public void onRemoved(int position, int count) {
+         mAdapter.notifySectionItemRangeRemoved(section, position, count);
+      }
+
+      @Override
+      public void onMoved(int fromPosition, int toPosition) {
+         mAdapter.notifySectionItemMoved(section, fromPosition, toPosition);
+      }
+
+      @Override
+      public void onChanged(int position, int count, Object payload) {
+         for (int i = 0; i < count; ++i) {
+            mAdapter.notifySectionItemChanged(section, position + i, payload);
+         }
+      }
+   }
+}
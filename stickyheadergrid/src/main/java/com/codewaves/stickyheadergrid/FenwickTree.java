@@ -0,0 +1,159 @@
+package com.codewaves.stickyheadergrid;
+
+import java.util.Arrays;
+
+/**
+ * Binary indexed tree over a growable list of non negative integers. Point updates,
+ * prefix sums and prefix sum searches run in O(log n). Inserting or removing values
+ * in the middle of the list shifts the values and rebuilds the tree in O(n).
+ */
+final class FenwickTree {
+   private static final int MIN_CAPACITY = 16;
+
+   private int[] mValues = new int[MIN_CAPACITY];
+   private int[] mTree = new int[MIN_CAPACITY + 1];
+   private int mSize;
+   private int mTotal;
+
+   /**
+    * Removes all values and makes sure at least <code>capacity</code> values can be
+    * appended without growing the arrays.
+    *
+    * @param capacity expected number of values
+    */
+   void clear(int capacity) {
+      if (mValues.length < capacity) {
+         final int size = Math.max(capacity, MIN_CAPACITY);
+         mValues = new int[size];
+         mTree = new int[size + 1];
+      }
+      mSize = 0;
+      mTotal = 0;
+   }
+
+   int size() {
+      return mSize;
+   }
+
+   int getTotal() {
+      return mTotal;
+   }
+
+   int get(int index) {
+      checkIndex(index, mSize);
+      return mValues[index];
+   }
+
+   /**
+    * Appends value to the end of the list in O(log n).
+    *
+    * @param value value to append
+    */
+   void append(int value) {
+      ensureCapacity(mSize + 1);
+      mValues[mSize] = value;
+      mSize++;
+      mTotal += value;
+
+      // Node covers (i - lowbit(i), i], everything except the last value is already summed up
+      final int node = mSize;
+      mTree[node] = value + sum(node - 1) - sum(node - (node & -node));
+   }
+
+   void insert(int index, int value) {
+      checkIndex(index, mSize + 1);
+      if (index == mSize) {
+         append(value);
+         return;
+      }
+
+      ensureCapacity(mSize + 1);
+      System.arraycopy(mValues, index, mValues, index + 1, mSize - index);
+      mValues[index] = value;
+      mSize++;
+      mTotal += value;
+      rebuild();
+   }
+
+   void remove(int index) {
+      checkIndex(index, mSize);
+      mTotal -= mValues[index];
+      mSize--;
+      System.arraycopy(mValues, index + 1, mValues, index, mSize - index);
+      rebuild();
+   }
+
+   void set(int index, int value) {
+      add(index, value - get(index));
+   }
+
+   void add(int index, int delta) {
+      checkIndex(index, mSize);
+      mValues[index] += delta;
+      mTotal += delta;
+      for (int i = index + 1; i <= mSize; i += i & -i) {
+         mTree[i] += delta;
+      }
+   }
+
+   /**
+    * Returns the sum of the first <code>count</code> values.
+    *
+    * @param count number of values to sum
+    * @return The prefix sum.
+    */
+   int sum(int count) {
+      int result = 0;
+      for (int i = count; i > 0; i -= i & -i) {
+         result += mTree[i];
+      }
+      return result;
+   }
+
+   /**
+    * Returns the largest <code>index</code> for which the sum of values before it is less
+    * than or equal to <code>target</code>. When all values are positive this is the index
+    * of the value covering <code>target</code>.
+    *
+    * @param target prefix sum to search
+    * @return The index in range [0, size].
+    */
+   int find(int target) {
+      int index = 0;
+      int remaining = target;
+      for (int step = Integer.highestOneBit(Math.max(mSize, 1)); step > 0; step >>= 1) {
+         final int next = index + step;
+         if (next <= mSize && mTree[next] <= remaining) {
+            index = next;
+            remaining -= mTree[next];
+         }
+      }
+      return index;
+   }
+
+   private void rebuild() {
+      for (int i = 1; i <= mSize; ++i) {
+         mTree[i] = mValues[i - 1];
+      }
+      for (int i = 1; i <= mSize; ++i) {
+         final int parent = i + (i & -i);
+         if (parent <= mSize) {
+            mTree[parent] += mTree[i];
+         }
+      }
+   }
+
+   private void ensureCapacity(int capacity) {
+      if (mValues.length < capacity) {
+         final int size = Math.max(capacity, mValues.length + (mValues.length >> 1));
+         mValues = Arrays.copyOf(mValues, size);
+         mTree = Arrays.copyOf(mTree, size + 1);
+      }
+   }
+
+   private static void checkIndex(int index, int size) {
+      if (index < 0 || index >= size) {
+         throw new IndexOutOfBoundsException("Invalid index " + index + ", size is " + size);
+      }
+   }
+}
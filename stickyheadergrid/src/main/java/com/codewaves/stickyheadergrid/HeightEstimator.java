@@ -0,0 +1,189 @@
+package com.codewaves.stickyheadergrid;
+
+import android.support.v4.util.SparseArrayCompat;
+
+/**
+ * Running averages of measured row heights used to estimate the height of rows that were never
+ * laid out. Item rows are averaged per section and per view type of the first row item, headers
+ * per view type. Estimates fall back from section to view type to all rows of the same kind.
+ *
+ * <p>Estimates of sections without own measurements depend on view type averages. The estimator
+ * reports when those averages drift noticeably from the values published last time, so the
+ * caller can rebuild its section heights instead of updating them after every measurement.</p>
+ *
+ * <p>Every measured row should be added once. Adding the same row on every layout pass would
+ * weight rows that are laid out often more than others.</p>
+ */
+final class HeightEstimator {
+   // Averages are stale after changing by more than 1/8 of the published value
+   private static final int DRIFT_SHIFT = 3;
+
+   private final SparseArrayCompat<Average> mSectionRows = new SparseArrayCompat<>();
+   private final SparseArrayCompat<Average> mTypeRows = new SparseArrayCompat<>();
+   private final SparseArrayCompat<Average> mTypeHeaders = new SparseArrayCompat<>();
+   private final Average mRows = new Average();
+   private final Average mHeaders = new Average();
+   private boolean mStale;
+
+   /**
+    * Adds measured item row height.
+    *
+    * @param section section of the row
+    * @param viewType view type of the first row item
+    * @param height row height
+    * @return True if the average row height of the section changed.
+    */
+   boolean addRow(int section, int viewType, int height) {
+      Average sectionAverage = mSectionRows.get(section);
+      if (sectionAverage == null) {
+         sectionAverage = new Average();
+         mSectionRows.put(section, sectionAverage);
+      }
+      final int oldHeight = sectionAverage.get();
+      sectionAverage.add(height);
+
+      add(mTypeRows, viewType, height);
+      mRows.add(height);
+      return oldHeight != sectionAverage.get();
+   }
+
+   void addHeader(int viewType, int height) {
+      add(mTypeHeaders, viewType, height);
+      mHeaders.add(height);
+   }
+
+   int estimateRowHeight(int section, int viewType) {
+      final Average sectionAverage = mSectionRows.get(section);
+      if (sectionAverage != null) {
+         return sectionAverage.get();
+      }
+      final Average typeAverage = mTypeRows.get(viewType);
+      if (typeAverage != null) {
+         return typeAverage.publish();
+      }
+      return mRows.publish();
+   }
+
+   int estimateHeaderHeight(int viewType) {
+      final Average typeAverage = mTypeHeaders.get(viewType);
+      if (typeAverage != null) {
+         return typeAverage.publish();
+      }
+      return mHeaders.publish();
+   }
+
+   /**
+    * Returns whether a view type average changed noticeably since it was last used for
+    * an estimate. Cleared by {@link #markFresh()}.
+    *
+    * @return True if estimates of sections without own measurements are outdated.
+    */
+   boolean isStale() {
+      return mStale;
+   }
+
+   void markFresh() {
+      mStale = false;
+   }
+
+   /**
+    * Forgets per section averages, used when the whole data set changed.
+    */
+   void clearSections() {
+      mSectionRows.clear();
+   }
+
+   /**
+    * Moves averages of sections at and after <code>section</code> by one.
+    *
+    * @param section index of the inserted section
+    */
+   void insertSection(int section) {
+      offsetSections(section, 1);
+   }
+
+   /**
+    * Forgets averages of <code>section</code> and moves averages of following sections back
+    * by one.
+    *
+    * @param section index of the removed section
+    */
+   void removeSection(int section) {
+      mSectionRows.remove(section);
+      offsetSections(section + 1, -1);
+   }
+
+   void clear() {
+      mSectionRows.clear();
+      mTypeRows.clear();
+      mTypeHeaders.clear();
+      mRows.clear();
+      mHeaders.clear();
+      mStale = false;
+   }
+
+   private void offsetSections(int sectionStart, int delta) {
+      // Keys are sorted, move the tail
+      int index = mSectionRows.size();
+      while (index > 0 && mSectionRows.keyAt(index - 1) >= sectionStart) {
+         index--;
+      }
+
+      final int count = mSectionRows.size() - index;
+      final int[] sections = new int[count];
+      final Average[] averages = new Average[count];
+      for (int i = 0; i < count; ++i) {
+         sections[i] = mSectionRows.keyAt(index + i);
+         averages[i] = mSectionRows.valueAt(index + i);
+      }
+      for (int i = count - 1; i >= 0; --i) {
+         mSectionRows.removeAt(index + i);
+      }
+      for (int i = 0; i < count; ++i) {
+         mSectionRows.put(sections[i] + delta, averages[i]);
+      }
+   }
+
+   private void add(SparseArrayCompat<Average> averages, int viewType, int height) {
+      Average average = averages.get(viewType);
+      if (average == null) {
+         average = new Average();
+         averages.put(viewType, average);
+      }
+      average.add(height);
+   }
+
+   private class Average {
+      private long sum;
+      private int count;
+      private int published;
+      private boolean used;
+
+      int get() {
+         return count > 0 ? (int)(sum / count) : 0;
+      }
+
+      int publish() {
+         published = get();
+         used = true;
+         return published;
+      }
+
+      void add(int height) {
+         sum += height;
+         count++;
+
+         final int drift = Math.abs(get() - published);
+         if (used && drift > 0 && drift >= published >> DRIFT_SHIFT) {
+            mStale = true;
+         }
+      }
+
+      void clear() {
+         sum = 0;
+         count = 0;
+         published = 0;
+         used = false;
+      }
+   }
+}
@@ -0,0 +1,76 @@
+package com.codewaves.stickyheadergrid;
+
+/**
+ * Compact mapping between adapter positions and sections. Only the length (header included)
+ * of every section is stored in a {@link FenwickTree}, so memory depends on the number of
+ * sections and not on the number of items. Section starts, position lookups and item count
+ * changes inside a section take O(log n), inserting or removing a whole section takes O(n)
+ * where n is the number of sections.
+ */
+final class SectionIndex {
+   private final FenwickTree mLengths = new FenwickTree();
+
+   /**
+    * Removes all sections and makes sure at least <code>capacity</code> sections can be
+    * appended without growing the arrays.
+    *
+    * @param capacity expected number of sections
+    */
+   void clear(int capacity) {
+      mLengths.clear(capacity);
+   }
+
+   /**
+    * Appends section to the end of the index.
+    *
+    * @param length section length including header
+    */
+   void append(int length) {
+      mLengths.append(length);
+   }
+
+   void insert(int section, int length) {
+      mLengths.insert(section, length);
+   }
+
+   void remove(int section) {
+      mLengths.remove(section);
+   }
+
+   void setLength(int section, int length) {
+      mLengths.set(section, length);
+   }
+
+   void addLength(int section, int delta) {
+      mLengths.add(section, delta);
+   }
+
+   int getSectionCount() {
+      return mLengths.size();
+   }
+
+   int getTotal() {
+      return mLengths.getTotal();
+   }
+
+   int getStart(int section) {
+      if (section < 0 || section >= mLengths.size()) {
+         throw new IndexOutOfBoundsException("Invalid section " + section + ", size is " + mLengths.size());
+      }
+      return mLengths.sum(section);
+   }
+
+   int getLength(int section) {
+      return mLengths.get(section);
+   }
+
+   /**
+    * Finds the section containing adapter <code>position</code>.
+    *
+    * @param position adapter position, must be in range [0, total)
+    * @return The section index.
+    */
+   int findSection(int position) {
+      return Math.min(mLengths.find(position), mLengths.size() - 1);
+   }
+}
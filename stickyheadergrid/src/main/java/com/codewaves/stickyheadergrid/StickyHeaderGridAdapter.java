@@ -7,7 +7,9 @@ import android.view.ViewGroup;
 
 import java.security.InvalidParameterException;
 import java.util.ArrayList;
+import java.util.List;
 
+import static android.support.v7.widget.RecyclerView.NO_ID;
 import static android.support.v7.widget.RecyclerView.NO_POSITION;
 
 /**
@@ -22,12 +24,52 @@ public abstract class StickyHeaderGridAdapter extends RecyclerView.Adapter<Stick
    public static final int TYPE_HEADER = 0;
    public static final int TYPE_ITEM = 1;
 
-   private ArrayList<Section> mSections;
-   private int[] mSectionIndices;
-   private int mTotalItemNumber;
+   private static final long HEADER_ID_FLAG = 1L << 63;
+   private static final long SECTION_ID_MASK = 0x7FFFFFFFL;
+   private static final long ITEM_ID_MASK = 0xFFFFFFFFL;
+
+   private SectionIndex mSections;
+   private ViewTypeCache mViewTypeCache;
+
+   private final ArrayList<SectionObserver> mSectionObservers = new ArrayList<>();
+
+   private int mBatchDepth;
+   private final UpdateBatch mBatchUpdates = new UpdateBatch();
+   private final UpdateBatch.Target mBatchTarget = new UpdateBatch.Target() {
+      @Override
+      public void onDataSetChanged() {
+         notifyDataSetChanged();
+      }
+
+      @Override
+      public void onItemRangeChanged(int positionStart, int count, Object payload) {
+         notifyItemRangeChanged(positionStart, count, payload);
+      }
+
+      @Override
+      public void onItemRangeInserted(int positionStart, int count) {
+         notifyItemRangeInserted(positionStart, count);
+      }
+
+      @Override
+      public void onItemRangeRemoved(int positionStart, int count) {
+         notifyItemRangeRemoved(positionStart, count);
+      }
+
+      @Override
+      public void onItemMoved(int fromPosition, int toPosition) {
+         notifyItemMoved(fromPosition, toPosition);
+      }
+   };
+
+   private boolean mFastBinding;
 
    @SuppressWarnings("WeakerAccess")
    public static class ViewHolder extends RecyclerView.ViewHolder {
+      boolean mFastBound;
+      // Layout manager estimator generation the measured row was counted in, 0 after bind
+      int mEstimateGeneration;
+
       public ViewHolder(View itemView) {
          super(itemView);
       }
@@ -59,43 +101,119 @@ public abstract class StickyHeaderGridAdapter extends RecyclerView.Adapter<Stick
       }
    }
 
-   private static class Section {
-      private int position;
-      private int itemNumber;
-      private int length;
+   /**
+    * Receives section level changes as soon as the adapter is notified about them. Used by the
+    * layout manager to invalidate its per section caches.
+    */
+   interface SectionObserver {
+      /**
+       * The whole data set changed. Section indices of previous calls are no longer valid.
+       */
+      void onSectionsChanged();
+
+      /**
+       * Section was inserted, sections at and after <code>section</code> moved by one.
+       *
+       * @param section index of the inserted section
+       */
+      void onSectionInserted(int section);
+
+      /**
+       * Section was removed, sections after <code>section</code> moved back by one.
+       *
+       * @param section index of the removed section
+       */
+      void onSectionRemoved(int section);
+
+      void onSectionHeaderChanged(int section);
+
+      /**
+       * Items of the section were inserted, removed or fully changed.
+       *
+       * @param section changed section
+       */
+      void onSectionItemsChanged(int section);
+
+      /**
+       * Item at adapter position was bound, fully or partially.
+       *
+       * @param position adapter position of the bound item
+       */
+      void onItemBound(int position);
    }
 
-   private void calculateSections() {
-      mSections = new ArrayList<>();
+   void calculateSections() {
+      if (mSections == null) {
+         mSections = new SectionIndex();
+      }
 
-      int total = 0;
-      int sectionCount = getSectionCount();
+      if (mViewTypeCache != null) {
+         mViewTypeCache.clear();
+      }
+
+      final int sectionCount = getSectionCount();
+      mSections.clear(sectionCount);
       for (int s = 0; s < sectionCount; s++) {
-         final Section section = new Section();
-         section.position = total;
-         section.itemNumber = getSectionItemCount(s);
-         section.length = section.itemNumber + 1;
-         mSections.add(section);
+         mSections.append(getSectionItemCount(s) + 1);
+      }
 
-         total += section.length;
+      dispatchSectionsChanged();
+   }
+
+   void registerSectionObserver(SectionObserver observer) {
+      if (!mSectionObservers.contains(observer)) {
+         mSectionObservers.add(observer);
       }
-      mTotalItemNumber = total;
+   }
 
-      total = 0;
-      mSectionIndices = new int[mTotalItemNumber];
-      for (int s = 0; s < sectionCount; s++) {
-         final Section section = mSections.get(s);
-         for (int i = 0; i < section.length; i++) {
-            mSectionIndices[total + i] = s;
-         }
-         total += section.length;
+   void unregisterSectionObserver(SectionObserver observer) {
+      mSectionObservers.remove(observer);
+   }
+
+   private void dispatchSectionsChanged() {
+      for (int i = mSectionObservers.size() - 1; i >= 0; --i) {
+         mSectionObservers.get(i).onSectionsChanged();
+      }
+   }
+
+   private void dispatchSectionInserted(int section) {
+      for (int i = mSectionObservers.size() - 1; i >= 0; --i) {
+         mSectionObservers.get(i).onSectionInserted(section);
+      }
+   }
+
+   private void dispatchSectionRemoved(int section) {
+      for (int i = mSectionObservers.size() - 1; i >= 0; --i) {
+         mSectionObservers.get(i).onSectionRemoved(section);
+      }
+   }
+
+   private void dispatchSectionHeaderChanged(int section) {
+      for (int i = mSectionObservers.size() - 1; i >= 0; --i) {
+         mSectionObservers.get(i).onSectionHeaderChanged(section);
+      }
+   }
+
+   private void dispatchSectionItemsChanged(int section) {
+      for (int i = mSectionObservers.size() - 1; i >= 0; --i) {
+         mSectionObservers.get(i).onSectionItemsChanged(section);
+      }
+   }
+
+   private void dispatchItemBound(ViewHolder holder, int position) {
+      holder.mEstimateGeneration = 0;
+      for (int i = mSectionObservers.size() - 1; i >= 0; --i) {
+         mSectionObservers.get(i).onItemBound(position);
       }
    }
 
    protected int getItemViewInternalType(int position) {
+      if (mViewTypeCache != null) {
+         return internalViewType(getItemViewType(position));
+      }
+
       final int section = getAdapterPositionSection(position);
-      final Section sectionObject = mSections.get(section);
-      final int sectionPosition = position - sectionObject.position;
+      final int sectionPosition = position - mSections.getStart(section);
 
       return getItemViewInternalType(section, sectionPosition);
    }
@@ -117,7 +235,7 @@ public abstract class StickyHeaderGridAdapter extends RecyclerView.Adapter<Stick
       if (mSections == null) {
          calculateSections();
       }
-      return mTotalItemNumber;
+      return mSections.getTotal();
    }
 
    @NonNull
@@ -142,7 +260,7 @@ public abstract class StickyHeaderGridAdapter extends RecyclerView.Adapter<Stick
          calculateSections();
       }
 
-      final int section = mSectionIndices[position];
+      final int section = mSections.findSection(position);
       final int internalType = internalViewType(holder.getItemViewType());
       final int externalType = externalViewType(holder.getItemViewType());
 
@@ -153,7 +271,44 @@ public abstract class StickyHeaderGridAdapter extends RecyclerView.Adapter<Stick
          case TYPE_ITEM:
             final ItemViewHolder itemHolder = (ItemViewHolder)holder;
             final int offset = getItemSectionOffset(section, position);
-            onBindItemViewHolder((ItemViewHolder)holder, section, offset);
+            if (mFastBinding) {
+               onBindItemViewHolderFast(itemHolder, section, offset);
+               itemHolder.mFastBound = true;
+            }
+            else {
+               onBindItemViewHolder(itemHolder, section, offset);
+               itemHolder.mFastBound = false;
+            }
+            dispatchItemBound(itemHolder, position);
+            break;
+         default:
+            throw new InvalidParameterException("invalid viewType: " + internalType);
+      }
+   }
+
+   @Override
+   final public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+      // Payloads update a fully bound item, fast bound items need a full bind
+      if (payloads.isEmpty() || holder.mFastBound) {
+         onBindViewHolder(holder, position);
+         return;
+      }
+
+      if (mSections == null) {
+         calculateSections();
+      }
+
+      final int section = mSections.findSection(position);
+      final int internalType = internalViewType(holder.getItemViewType());
+
+      switch (internalType) {
+         case TYPE_HEADER:
+            onBindHeaderViewHolder((HeaderViewHolder)holder, section, payloads);
+            break;
+         case TYPE_ITEM:
+            final int offset = getItemSectionOffset(section, position);
+            onBindItemViewHolder((ItemViewHolder)holder, section, offset, payloads);
+            dispatchItemBound(holder, position);
             break;
          default:
             throw new InvalidParameterException("invalid viewType: " + internalType);
@@ -162,9 +317,20 @@ public abstract class StickyHeaderGridAdapter extends RecyclerView.Adapter<Stick
 
    @Override
    final public int getItemViewType(int position) {
+      if (mViewTypeCache != null) {
+         int type = mViewTypeCache.get(position);
+         if (type == ViewTypeCache.NO_TYPE) {
+            type = computeItemViewType(position);
+            mViewTypeCache.put(position, type);
+         }
+         return type;
+      }
+      return computeItemViewType(position);
+   }
+
+   private int computeItemViewType(int position) {
       final int section = getAdapterPositionSection(position);
-      final Section sectionObject = mSections.get(section);
-      final int sectionPosition = position - sectionObject.position;
+      final int sectionPosition = position - mSections.getStart(section);
       final int internalType = getItemViewInternalType(section, sectionPosition);
       int externalType = 0;
 
@@ -180,6 +346,68 @@ public abstract class StickyHeaderGridAdapter extends RecyclerView.Adapter<Stick
       return ((externalType & 0xFF) << 8) | (internalType & 0xFF);
    }
 
+   /**
+    * Enables or disables caching of view types. When enabled, the packed view type of every
+    * queried position is stored in a primitive table, so repeated {@link #getItemViewType(int)}
+    * calls from RecyclerView and the layout manager skip the section lookup and the
+    * {@link #getSectionHeaderViewType(int)}/{@link #getSectionItemViewType(int, int)} calls.
+    *
+    * <p>Cached types are invalidated by the <code>notify*</code> methods of this adapter.
+    * Only enable the cache if view types change exclusively through these notifications.</p>
+    *
+    * @param enabled whether view types should be cached
+    */
+   public void setViewTypeCacheEnabled(boolean enabled) {
+      if (enabled && mViewTypeCache == null) {
+         mViewTypeCache = new ViewTypeCache();
+      }
+      else if (!enabled) {
+         mViewTypeCache = null;
+      }
+   }
+
+   public boolean isViewTypeCacheEnabled() {
+      return mViewTypeCache != null;
+   }
+
+   /**
+    * Returns the stable ID of the header or item at <code>position</code>, if the adapter
+    * {@link #hasStableIds() has stable IDs}. Item IDs combine the low 31 bits of
+    * {@link #getSectionId(int)} with the low 32 bits of {@link #getSectionItemId(int, int)}.
+    * Header IDs use the whole section ID in a separate namespace, so they never collide with
+    * item IDs. <code>NO_ID</code> is reserved and both methods must be overridden, their default
+    * implementations return it.
+    *
+    * @param position adapter position to query
+    * @return The stable ID of the header or item at position.
+    * @throws IllegalStateException if {@link #getSectionId(int)} or
+    *         {@link #getSectionItemId(int, int)} returns <code>NO_ID</code>
+    */
+   @Override
+   final public long getItemId(int position) {
+      if (!hasStableIds()) {
+         return NO_ID;
+      }
+
+      final int section = getAdapterPositionSection(position);
+      final int sectionPosition = position - mSections.getStart(section);
+      final long sectionId = getSectionId(section);
+      if (sectionId == NO_ID) {
+         // Header ID would be NO_ID as well
+         throw new IllegalStateException("getSectionId must be overridden when stable IDs are enabled");
+      }
+      if (sectionPosition == 0) {
+         return HEADER_ID_FLAG | sectionId;
+      }
+
+      final long itemId = getSectionItemId(section, sectionPosition - 1);
+      if (itemId == NO_ID) {
+         // Items of the section would share one ID
+         throw new IllegalStateException("getSectionItemId must be overridden when stable IDs are enabled");
+      }
+      return ((sectionId & SECTION_ID_MASK) << 32) | (itemId & ITEM_ID_MASK);
+   }
+
    // Helpers
    private int getItemSectionHeaderPosition(int position) {
       return getSectionHeaderPosition(getAdapterPositionSection(position));
@@ -194,12 +422,11 @@ public abstract class StickyHeaderGridAdapter extends RecyclerView.Adapter<Stick
          throw new IndexOutOfBoundsException("section " + section + " < 0");
       }
 
-      if (section >= mSections.size()) {
-         throw new IndexOutOfBoundsException("section " + section + " >=" + mSections.size());
+      if (section >= mSections.getSectionCount()) {
+         throw new IndexOutOfBoundsException("section " + section + " >=" + mSections.getSectionCount());
       }
 
-      final Section sectionObject = mSections.get(section);
-      return sectionObject.position + offset;
+      return mSections.getStart(section) + offset;
    }
 
    /**
@@ -219,14 +446,14 @@ public abstract class StickyHeaderGridAdapter extends RecyclerView.Adapter<Stick
          throw new IndexOutOfBoundsException("section " + section + " < 0");
       }
 
-      if (section >= mSections.size()) {
-         throw new IndexOutOfBoundsException("section " + section + " >=" + mSections.size());
+      if (section >= mSections.getSectionCount()) {
+         throw new IndexOutOfBoundsException("section " + section + " >=" + mSections.getSectionCount());
       }
 
-      final Section sectionObject = mSections.get(section);
-      final int localPosition = position - sectionObject.position;
-      if (localPosition >= sectionObject.length) {
-         throw new IndexOutOfBoundsException("localPosition: " + localPosition + " >=" + sectionObject.length);
+      final int localPosition = position - mSections.getStart(section);
+      final int length = mSections.getLength(section);
+      if (localPosition >= length) {
+         throw new IndexOutOfBoundsException("localPosition: " + localPosition + " >=" + length);
       }
 
       return localPosition - 1;
@@ -256,7 +483,7 @@ public abstract class StickyHeaderGridAdapter extends RecyclerView.Adapter<Stick
          throw new IndexOutOfBoundsException("position " + position + " >=" + getItemCount());
       }
 
-      return mSectionIndices[position];
+      return mSections.findSection(position);
    }
 
    /**
@@ -338,6 +565,47 @@ public abstract class StickyHeaderGridAdapter extends RecyclerView.Adapter<Stick
       return 0;
    }
 
+   /**
+    * Returns the stable ID of the <code>section</code>. Override this method together with
+    * {@link #getSectionItemId(int, int)} and call {@link #setHasStableIds(boolean)} to enable
+    * stable IDs. Section IDs must be unique among sections and must not be <code>NO_ID</code>,
+    * only the low 31 bits are used for item IDs.
+    *
+    * <p>With stable IDs RecyclerView can match existing views to the data set after
+    * {@link #notifyAllSectionsDataSetChanged()} instead of recreating them.</p>
+    *
+    * @param section section to query
+    * @return The stable ID of the section.
+    */
+   public long getSectionId(int section) {
+      return NO_ID;
+   }
+
+   /**
+    * Returns the stable ID of the item at <code>offset</code> in <code>section</code>.
+    * Item IDs must be unique inside the section and must not be <code>NO_ID</code>, only the
+    * low 32 bits are used.
+    *
+    * @param section section to query
+    * @param offset section position to query
+    * @return The stable ID of the item.
+    * @see #getSectionId(int)
+    */
+   public long getSectionItemId(int section, int offset) {
+      return NO_ID;
+   }
+
+   /**
+    * Returns the label shown by {@link StickyHeaderGridFastScroller} while dragging through
+    * <code>section</code>.
+    *
+    * @param section section to query
+    * @return The section label, or null to show no label.
+    */
+   public String getSectionLabel(int section) {
+      return null;
+   }
+
    /**
     * Returns true if header in <code>section</code> is sticky.
     *
@@ -415,6 +683,24 @@ public abstract class StickyHeaderGridAdapter extends RecyclerView.Adapter<Stick
     */
    public abstract void onBindHeaderViewHolder(HeaderViewHolder viewHolder, int section);
 
+   /**
+    * Called by RecyclerView to update the header with the payloads passed to
+    * {@link #notifySectionHeaderChanged(int, Object)}. Payloads are merged into a list when the
+    * header was changed several times before the next layout. The payload list is never empty,
+    * headers without payloads are bound with {@link #onBindHeaderViewHolder(HeaderViewHolder, int)}.
+    *
+    * <p>The default implementation ignores payloads and does a full bind. Override it to update
+    * only the parts of the header view described by the payloads.</p>
+    *
+    * @param viewHolder The ViewHolder which should be updated to represent the contents of the
+    *        header at the given position in the data set.
+    * @param section The index of the section.
+    * @param payloads A non-empty list of merged payloads.
+    */
+   public void onBindHeaderViewHolder(HeaderViewHolder viewHolder, int section, List<Object> payloads) {
+      onBindHeaderViewHolder(viewHolder, section);
+   }
+
    /**
     * Called by RecyclerView to display the data at the specified position. This method should
     * update the contents of the {@link ItemViewHolder#itemView} to reflect the item at the given
@@ -438,6 +724,139 @@ public abstract class StickyHeaderGridAdapter extends RecyclerView.Adapter<Stick
     */
    public abstract void onBindItemViewHolder(ItemViewHolder viewHolder, int section, int offset);
 
+   /**
+    * Called by RecyclerView to update the item with the payloads passed to
+    * {@link #notifySectionItemChanged(int, int, Object)}. Payloads are merged into a list when
+    * the item was changed several times before the next layout. The payload list is never empty,
+    * items without payloads are bound with {@link #onBindItemViewHolder(ItemViewHolder, int, int)}.
+    *
+    * <p>The default implementation ignores payloads and does a full bind. Override it to update
+    * only the parts of the item view described by the payloads.</p>
+    *
+    * @param viewHolder The ViewHolder which should be updated to represent the contents of the
+    *        item at the given position in the data set.
+    * @param section The index of the section.
+    * @param offset The position of the item within the section.
+    * @param payloads A non-empty list of merged payloads.
+    */
+   public void onBindItemViewHolder(ItemViewHolder viewHolder, int section, int offset, List<Object> payloads) {
+      onBindItemViewHolder(viewHolder, section, offset);
+   }
+
+   /**
+    * Called by RecyclerView instead of {@link #onBindItemViewHolder(ItemViewHolder, int, int)}
+    * while the list scrolls faster than the fast bind velocity of the layout manager. Items bound
+    * here are usually visible for a frame or two, so only a cheap placeholder state should be
+    * bound, e.g. text without images. Items still visible when scrolling stops are bound again
+    * with {@link #onBindItemViewHolder(ItemViewHolder, int, int)}.
+    *
+    * <p>The default implementation does a full bind.</p>
+    *
+    * @param viewHolder The ViewHolder which should be updated to represent the contents of the
+    *        item at the given position in the data set.
+    * @param section The index of the section.
+    * @param offset The position of the item within the section.
+    *
+    * @see StickyHeaderGridLayoutManager#setFastBindVelocity(int)
+    */
+   public void onBindItemViewHolderFast(ItemViewHolder viewHolder, int section, int offset) {
+      onBindItemViewHolder(viewHolder, section, offset);
+   }
+
+   // Fast binding, set by a layout manager only while it obtains its own item views, so other
+   // RecyclerViews sharing this adapter are not affected
+   void setFastBinding(boolean fastBinding) {
+      mFastBinding = fastBinding;
+   }
+
+   // Batch updates
+   /**
+    * Starts a batch of section notifications. Until the matching {@link #endBatchUpdate()}
+    * call, all <code>notifySection*</code> methods only update the section index and queue
+    * the resulting item range changes. Adjacent ranges are merged and dispatched to the
+    * observers in one go when the outermost batch ends.
+    *
+    * <p>Batches can be nested. The notifications must still describe every change in the same
+    * order it was applied to the data set.</p>
+    *
+    * @see #endBatchUpdate()
+    */
+   public void beginBatchUpdate() {
+      mBatchDepth++;
+   }
+
+   /**
+    * Ends a batch of section notifications started with {@link #beginBatchUpdate()} and
+    * dispatches the merged item range changes, if this is the outermost batch.
+    *
+    * @see #beginBatchUpdate()
+    */
+   public void endBatchUpdate() {
+      if (mBatchDepth <= 0) {
+         throw new IllegalStateException("endBatchUpdate() called without beginBatchUpdate()");
+      }
+
+      mBatchDepth--;
+      if (mBatchDepth > 0) {
+         return;
+      }
+
+      mBatchUpdates.dispatch(mBatchTarget);
+   }
+
+   private void dispatchItemRangeChanged(int positionStart, int count, Object payload) {
+      if (mViewTypeCache != null) {
+         mViewTypeCache.invalidate(positionStart, count);
+      }
+
+      if (mBatchDepth == 0) {
+         notifyItemRangeChanged(positionStart, count, payload);
+      }
+      else {
+         mBatchUpdates.addItemRangeChanged(positionStart, count, payload);
+      }
+   }
+
+   private void dispatchItemRangeInserted(int positionStart, int count) {
+      if (mViewTypeCache != null) {
+         mViewTypeCache.invalidateFrom(positionStart);
+      }
+
+      if (mBatchDepth == 0) {
+         notifyItemRangeInserted(positionStart, count);
+      }
+      else {
+         mBatchUpdates.addItemRangeInserted(positionStart, count);
+      }
+   }
+
+   private void dispatchItemRangeRemoved(int positionStart, int count) {
+      if (mViewTypeCache != null) {
+         mViewTypeCache.invalidateFrom(positionStart);
+      }
+
+      if (mBatchDepth == 0) {
+         notifyItemRangeRemoved(positionStart, count);
+      }
+      else {
+         mBatchUpdates.addItemRangeRemoved(positionStart, count);
+      }
+   }
+
+   private void dispatchItemMoved(int fromPosition, int toPosition) {
+      if (mViewTypeCache != null) {
+         final int start = Math.min(fromPosition, toPosition);
+         mViewTypeCache.invalidate(start, Math.max(fromPosition, toPosition) - start + 1);
+      }
+
+      if (mBatchDepth == 0) {
+         notifyItemMoved(fromPosition, toPosition);
+      }
+      else {
+         mBatchUpdates.addItemMoved(fromPosition, toPosition);
+      }
+   }
+
    // Notify
    /**
     * Notify any registered observers that the data set has changed.
@@ -461,6 +880,10 @@ public abstract class StickyHeaderGridAdapter extends RecyclerView.Adapter<Stick
     * specific change events if you can. Rely on <code>notifyDataSetChanged()</code>
     * as a last resort.</p>
     *
+    * <p>This is the only notification that rebuilds the section index from
+    * {@link #getSectionCount()} and {@link #getSectionItemCount(int)}. All other notify
+    * methods update the index incrementally, so they must describe the change exactly.</p>
+    *
     * @see #notifySectionDataSetChanged(int)
     * @see #notifySectionHeaderChanged(int)
     * @see #notifySectionItemChanged(int, int)
@@ -473,139 +896,215 @@ public abstract class StickyHeaderGridAdapter extends RecyclerView.Adapter<Stick
     */
    public void notifyAllSectionsDataSetChanged() {
       calculateSections();
-      notifyDataSetChanged();
+      if (mBatchDepth > 0) {
+         mBatchUpdates.addDataSetChanged();
+      }
+      else {
+         notifyDataSetChanged();
+      }
    }
 
    public void notifySectionDataSetChanged(int section) {
-      calculateSections();
       if (mSections == null) {
          notifyAllSectionsDataSetChanged();
       }
       else {
-         final Section sectionObject = mSections.get(section);
-         notifyItemRangeChanged(sectionObject.position, sectionObject.length);
+         final int oldLength = mSections.getLength(section);
+         final int newLength = getSectionItemCount(section) + 1;
+         mSections.setLength(section, newLength);
+         dispatchSectionHeaderChanged(section);
+         dispatchSectionItemsChanged(section);
+
+         final int sectionStart = mSections.getStart(section);
+         dispatchItemRangeChanged(sectionStart, Math.min(oldLength, newLength), null);
+         if (newLength > oldLength) {
+            dispatchItemRangeInserted(sectionStart + oldLength, newLength - oldLength);
+         }
+         else if (newLength < oldLength) {
+            dispatchItemRangeRemoved(sectionStart + newLength, oldLength - newLength);
+         }
       }
    }
 
    public void notifySectionHeaderChanged(int section) {
-      calculateSections();
+      notifySectionHeaderChanged(section, null);
+   }
+
+   /**
+    * Notify any registered observers that the header of <code>section</code> has changed
+    * with an optional payload. The payload is passed to
+    * {@link #onBindHeaderViewHolder(HeaderViewHolder, int, List)} for partial binding.
+    *
+    * @param section changed section
+    * @param payload optional payload, null to identify a full update
+    */
+   public void notifySectionHeaderChanged(int section, Object payload) {
       if (mSections == null) {
          notifyAllSectionsDataSetChanged();
       }
       else {
-         final Section sectionObject = mSections.get(section);
-         notifyItemRangeChanged(sectionObject.position, 1);
+         dispatchSectionHeaderChanged(section);
+         dispatchItemRangeChanged(mSections.getStart(section), 1, payload);
       }
    }
 
    public void notifySectionItemChanged(int section, int position) {
-      calculateSections();
+      notifySectionItemChanged(section, position, null);
+   }
+
+   /**
+    * Notify any registered observers that the item at <code>position</code> in
+    * <code>section</code> has changed with an optional payload. The payload is passed to
+    * {@link #onBindItemViewHolder(ItemViewHolder, int, int, List)} for partial binding.
+    *
+    * @param section section of the changed item
+    * @param position changed item position inside the <code>section</code>
+    * @param payload optional payload, null to identify a full update
+    */
+   public void notifySectionItemChanged(int section, int position, Object payload) {
       if (mSections == null) {
          notifyAllSectionsDataSetChanged();
       }
       else {
-         final Section sectionObject = mSections.get(section);
+         final int itemNumber = mSections.getLength(section) - 1;
 
-         if (position >= sectionObject.itemNumber) {
-            throw new IndexOutOfBoundsException("Invalid index " + position + ", size is " + sectionObject.itemNumber);
+         if (position >= itemNumber) {
+            throw new IndexOutOfBoundsException("Invalid index " + position + ", size is " + itemNumber);
          }
 
-         notifyItemChanged(sectionObject.position + position + 1);
+         if (payload == null) {
+            dispatchSectionItemsChanged(section);
+         }
+         dispatchItemRangeChanged(mSections.getStart(section) + position + 1, 1, payload);
       }
    }
 
    public void notifySectionInserted(int section) {
-      calculateSections();
       if (mSections == null) {
          notifyAllSectionsDataSetChanged();
       }
       else {
-         final Section sectionObject = mSections.get(section);
-         notifyItemRangeInserted(sectionObject.position, sectionObject.length);
+         final int sectionLength = getSectionItemCount(section) + 1;
+         mSections.insert(section, sectionLength);
+         dispatchItemRangeInserted(mSections.getStart(section), sectionLength);
+         dispatchSectionInserted(section);
       }
    }
 
    public void notifySectionItemInserted(int section, int position) {
-      calculateSections();
       if (mSections == null) {
          notifyAllSectionsDataSetChanged();
       }
       else {
-         final Section sectionObject = mSections.get(section);
+         final int itemNumber = mSections.getLength(section);
 
-         if (position < 0 || position >= sectionObject.itemNumber) {
-            throw new IndexOutOfBoundsException("Invalid index " + position + ", size is " + sectionObject.itemNumber);
+         if (position < 0 || position >= itemNumber) {
+            throw new IndexOutOfBoundsException("Invalid index " + position + ", size is " + itemNumber);
          }
 
-         notifyItemInserted(sectionObject.position + position + 1);
+         mSections.addLength(section, 1);
+         dispatchSectionItemsChanged(section);
+         dispatchItemRangeInserted(mSections.getStart(section) + position + 1, 1);
       }
    }
 
    public void notifySectionItemRangeInserted(int section, int position, int count) {
-      calculateSections();
       if (mSections == null) {
          notifyAllSectionsDataSetChanged();
       }
       else {
-         final Section sectionObject = mSections.get(section);
+         final int itemNumber = mSections.getLength(section) - 1 + count;
 
-         if (position < 0 || position >= sectionObject.itemNumber) {
-            throw new IndexOutOfBoundsException("Invalid index " + position + ", size is " + sectionObject.itemNumber);
+         if (position < 0 || position >= itemNumber) {
+            throw new IndexOutOfBoundsException("Invalid index " + position + ", size is " + itemNumber);
          }
-         if (position + count > sectionObject.itemNumber) {
-            throw new IndexOutOfBoundsException("Invalid index " + (position + count) + ", size is " + sectionObject.itemNumber);
+         if (position + count > itemNumber) {
+            throw new IndexOutOfBoundsException("Invalid index " + (position + count) + ", size is " + itemNumber);
          }
 
-         notifyItemRangeInserted(sectionObject.position + position + 1, count);
+         mSections.addLength(section, count);
+         dispatchSectionItemsChanged(section);
+         dispatchItemRangeInserted(mSections.getStart(section) + position + 1, count);
       }
    }
 
    public void notifySectionRemoved(int section) {
       if (mSections == null) {
-         calculateSections();
          notifyAllSectionsDataSetChanged();
       }
       else {
-         final Section sectionObject = mSections.get(section);
-         calculateSections();
-         notifyItemRangeRemoved(sectionObject.position, sectionObject.length);
+         final int sectionStart = mSections.getStart(section);
+         final int sectionLength = mSections.getLength(section);
+         mSections.remove(section);
+         dispatchItemRangeRemoved(sectionStart, sectionLength);
+         dispatchSectionRemoved(section);
       }
    }
 
    public void notifySectionItemRemoved(int section, int position) {
       if (mSections == null) {
-         calculateSections();
          notifyAllSectionsDataSetChanged();
       }
       else {
-         final Section sectionObject = mSections.get(section);
+         final int sectionStart = mSections.getStart(section);
+         final int itemNumber = mSections.getLength(section) - 1;
 
-         if (position < 0 || position >= sectionObject.itemNumber) {
-            throw new IndexOutOfBoundsException("Invalid index " + position + ", size is " + sectionObject.itemNumber);
+         if (position < 0 || position >= itemNumber) {
+            throw new IndexOutOfBoundsException("Invalid index " + position + ", size is " + itemNumber);
          }
 
-         calculateSections();
-         notifyItemRemoved(sectionObject.position + position + 1);
+         mSections.addLength(section, -1);
+         dispatchSectionItemsChanged(section);
+         dispatchItemRangeRemoved(sectionStart + position + 1, 1);
       }
    }
 
    public void notifySectionItemRangeRemoved(int section, int position, int count) {
       if (mSections == null) {
-         calculateSections();
          notifyAllSectionsDataSetChanged();
       }
       else {
-         final Section sectionObject = mSections.get(section);
+         final int sectionStart = mSections.getStart(section);
+         final int itemNumber = mSections.getLength(section) - 1;
 
-         if (position < 0 || position >= sectionObject.itemNumber) {
-            throw new IndexOutOfBoundsException("Invalid index " + position + ", size is " + sectionObject.itemNumber);
+         if (position < 0 || position >= itemNumber) {
+            throw new IndexOutOfBoundsException("Invalid index " + position + ", size is " + itemNumber);
          }
-         if (position + count > sectionObject.itemNumber) {
-            throw new IndexOutOfBoundsException("Invalid index " + (position + count) + ", size is " + sectionObject.itemNumber);
+         if (position + count > itemNumber) {
+            throw new IndexOutOfBoundsException("Invalid index " + (position + count) + ", size is " + itemNumber);
          }
 
-         calculateSections();
-         notifyItemRangeRemoved(sectionObject.position + position + 1, count);
+         mSections.addLength(section, -count);
+         dispatchSectionItemsChanged(section);
+         dispatchItemRangeRemoved(sectionStart + position + 1, count);
+      }
+   }
+
+   /**
+    * Notify any registered observers that the item at <code>fromPosition</code> in
+    * <code>section</code> has been moved to <code>toPosition</code> in the same section.
+    *
+    * @param section section of the moved item
+    * @param fromPosition previous item position inside the <code>section</code>
+    * @param toPosition new item position inside the <code>section</code>
+    */
+   public void notifySectionItemMoved(int section, int fromPosition, int toPosition) {
+      if (mSections == null) {
+         notifyAllSectionsDataSetChanged();
+      }
+      else {
+         final int sectionStart = mSections.getStart(section);
+         final int itemNumber = mSections.getLength(section) - 1;
+
+         if (fromPosition < 0 || fromPosition >= itemNumber) {
+            throw new IndexOutOfBoundsException("Invalid index " + fromPosition + ", size is " + itemNumber);
+         }
+         if (toPosition < 0 || toPosition >= itemNumber) {
+            throw new IndexOutOfBoundsException("Invalid index " + toPosition + ", size is " + itemNumber);
+         }
+
+         dispatchSectionItemsChanged(section);
+         dispatchItemMoved(sectionStart + fromPosition + 1, sectionStart + toPosition + 1);
       }
    }
 }
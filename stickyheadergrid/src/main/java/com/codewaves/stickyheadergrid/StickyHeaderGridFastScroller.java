@@ -0,0 +1,249 @@
+package com.codewaves.stickyheadergrid;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.RecyclerView;
+import android.view.MotionEvent;
+
+/**
+ * Fast scroller for RecyclerView using {@link StickyHeaderGridLayoutManager}. Dragging the thumb
+ * maps its position to a content offset through the section heights of the layout manager and
+ * jumps there with a single layout pass, rows in between are never laid out. While dragging,
+ * the label of the first visible section returned by
+ * {@link StickyHeaderGridAdapter#getSectionLabel(int)} is shown next to the thumb.
+ *
+ * <pre>
+ * new StickyHeaderGridFastScroller(context, thumbDrawable).attachToRecyclerView(recyclerView);
+ * </pre>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class StickyHeaderGridFastScroller extends RecyclerView.ItemDecoration implements RecyclerView.OnItemTouchListener {
+   public static final String TAG = "StickyHeaderGridFastScroller";
+
+   private static final int DEFAULT_THUMB_WIDTH_DP = 8;
+   private static final int DEFAULT_THUMB_HEIGHT_DP = 48;
+   private static final int DEFAULT_TOUCH_WIDTH_DP = 32;
+   private static final int DEFAULT_LABEL_TEXT_SIZE_DP = 24;
+   private static final int DEFAULT_LABEL_PADDING_DP = 12;
+   private static final int DEFAULT_LABEL_MARGIN_DP = 8;
+   private static final int DEFAULT_LABEL_COLOR = 0xFFFFFFFF;
+   private static final int DEFAULT_LABEL_BACKGROUND_COLOR = 0xCC000000;
+
+   private final Drawable mThumbDrawable;
+   private final int mThumbWidth;
+   private final int mThumbHeight;
+   private final int mTouchWidth;
+   private final int mLabelPadding;
+   private final int mLabelMargin;
+   private final Paint mLabelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+   private final Paint mLabelBackgroundPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+   private final RectF mLabelRect = new RectF();
+   private Drawable mLabelBackground;
+
+   private RecyclerView mRecyclerView;
+   private boolean mDragging;
+   private float mDragFraction;
+   private float mGrabOffset;
+
+   private final RecyclerView.OnScrollListener mOnScrollListener = new RecyclerView.OnScrollListener() {
+      @Override
+      public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+         if (!mDragging) {
+            recyclerView.invalidate();
+         }
+      }
+   };
+
+   /**
+    * Creates fast scroller with provided thumb. Thumb intrinsic size is used if specified,
+    * default size otherwise.
+    *
+    * @param context context used to resolve default sizes
+    * @param thumbDrawable drawable used to draw the thumb
+    */
+   public StickyHeaderGridFastScroller(@NonNull Context context, @NonNull Drawable thumbDrawable) {
+      final float density = context.getResources().getDisplayMetrics().density;
+
+      mThumbDrawable = thumbDrawable;
+      mThumbWidth = thumbDrawable.getIntrinsicWidth() > 0 ? thumbDrawable.getIntrinsicWidth() : Math.round(DEFAULT_THUMB_WIDTH_DP * density);
+      mThumbHeight = thumbDrawable.getIntrinsicHeight() > 0 ? thumbDrawable.getIntrinsicHeight() : Math.round(DEFAULT_THUMB_HEIGHT_DP * density);
+      mTouchWidth = Math.max(mThumbWidth, Math.round(DEFAULT_TOUCH_WIDTH_DP * density));
+      mLabelPadding = Math.round(DEFAULT_LABEL_PADDING_DP * density);
+      mLabelMargin = Math.round(DEFAULT_LABEL_MARGIN_DP * density);
+
+      mLabelPaint.setColor(DEFAULT_LABEL_COLOR);
+      mLabelPaint.setTextSize(DEFAULT_LABEL_TEXT_SIZE_DP * density);
+      mLabelBackgroundPaint.setColor(DEFAULT_LABEL_BACKGROUND_COLOR);
+   }
+
+   /**
+    * Attaches the fast scroller to <code>recyclerView</code>, detaching it from the previous one.
+    * RecyclerView must use {@link StickyHeaderGridLayoutManager}.
+    *
+    * @param recyclerView RecyclerView to attach to, or null to detach
+    */
+   public void attachToRecyclerView(@Nullable RecyclerView recyclerView) {
+      if (mRecyclerView == recyclerView) {
+         return;
+      }
+
+      if (mRecyclerView != null) {
+         mRecyclerView.removeItemDecoration(this);
+         mRecyclerView.removeOnItemTouchListener(this);
+         mRecyclerView.removeOnScrollListener(mOnScrollListener);
+      }
+
+      mRecyclerView = recyclerView;
+      mDragging = false;
+      if (mRecyclerView != null) {
+         mRecyclerView.addItemDecoration(this);
+         mRecyclerView.addOnItemTouchListener(this);
+         mRecyclerView.addOnScrollListener(mOnScrollListener);
+      }
+   }
+
+   public void setLabelTextColor(int color) {
+      mLabelPaint.setColor(color);
+   }
+
+   public void setLabelTextSize(float size) {
+      mLabelPaint.setTextSize(size);
+   }
+
+   /**
+    * Sets the label background. If not set, label is drawn on a rounded rectangle.
+    *
+    * @param background label background drawable, or null to use the default background
+    */
+   public void setLabelBackground(@Nullable Drawable background) {
+      mLabelBackground = background;
+   }
+
+   public boolean isDragging() {
+      return mDragging;
+   }
+
+   @Override
+   public void onDrawOver(Canvas canvas, RecyclerView parent, RecyclerView.State state) {
+      final int scrollRange = parent.computeVerticalScrollRange() - parent.computeVerticalScrollExtent();
+      if (scrollRange <= 0 || getLayoutManager() == null) {
+         return;
+      }
+
+      final float fraction = mDragging ? mDragFraction : Math.min(1.0f, (float)parent.computeVerticalScrollOffset() / scrollRange);
+      final int thumbTop = Math.round(fraction * getThumbTravel());
+      final int thumbRight = parent.getWidth() - parent.getPaddingRight();
+      mThumbDrawable.setBounds(thumbRight - mThumbWidth, thumbTop, thumbRight, thumbTop + mThumbHeight);
+      mThumbDrawable.draw(canvas);
+
+      if (mDragging) {
+         drawLabel(canvas, thumbRight - mThumbWidth - mLabelMargin, thumbTop + mThumbHeight / 2);
+      }
+   }
+
+   private void drawLabel(Canvas canvas, int right, int centerY) {
+      final StickyHeaderGridLayoutManager layoutManager = getLayoutManager();
+      final RecyclerView.Adapter adapter = mRecyclerView.getAdapter();
+      if (!(adapter instanceof StickyHeaderGridAdapter)) {
+         return;
+      }
+
+      final int section = layoutManager.getFirstVisibleSection();
+      if (section == RecyclerView.NO_POSITION) {
+         return;
+      }
+
+      final String label = ((StickyHeaderGridAdapter)adapter).getSectionLabel(section);
+      if (label == null || label.isEmpty()) {
+         return;
+      }
+
+      final float textHeight = mLabelPaint.descent() - mLabelPaint.ascent();
+      final float height = textHeight + mLabelPadding * 2;
+      final float width = Math.max(height, mLabelPaint.measureText(label) + mLabelPadding * 2);
+      final float top = Math.min(Math.max(centerY - height / 2, 0), mRecyclerView.getHeight() - height);
+      mLabelRect.set(right - width, top, right, top + height);
+
+      if (mLabelBackground != null) {
+         mLabelBackground.setBounds(Math.round(mLabelRect.left), Math.round(mLabelRect.top), Math.round(mLabelRect.right), Math.round(mLabelRect.bottom));
+         mLabelBackground.draw(canvas);
+      }
+      else {
+         final float radius = height / 2;
+         canvas.drawRoundRect(mLabelRect, radius, radius, mLabelBackgroundPaint);
+      }
+      canvas.drawText(label, mLabelRect.left + mLabelPadding, top + mLabelPadding - mLabelPaint.ascent(), mLabelPaint);
+   }
+
+   @Override
+   public boolean onInterceptTouchEvent(RecyclerView recyclerView, MotionEvent event) {
+      if (event.getActionMasked() != MotionEvent.ACTION_DOWN || !isOverThumb(event.getX(), event.getY())) {
+         return false;
+      }
+
+      final int scrollRange = recyclerView.computeVerticalScrollRange() - recyclerView.computeVerticalScrollExtent();
+      final float fraction = Math.min(1.0f, (float)recyclerView.computeVerticalScrollOffset() / scrollRange);
+      mGrabOffset = event.getY() - fraction * getThumbTravel();
+      mDragFraction = fraction;
+      mDragging = true;
+      recyclerView.stopScroll();
+      recyclerView.invalidate();
+      return true;
+   }
+
+   @Override
+   public void onTouchEvent(RecyclerView recyclerView, MotionEvent event) {
+      if (!mDragging) {
+         return;
+      }
+
+      switch (event.getActionMasked()) {
+         case MotionEvent.ACTION_MOVE:
+            final int travel = getThumbTravel();
+            final float fraction = travel > 0 ? Math.min(Math.max((event.getY() - mGrabOffset) / travel, 0.0f), 1.0f) : 0.0f;
+            if (fraction != mDragFraction) {
+               // Layout requests are merged until the next frame, so every frame lays out once
+               mDragFraction = fraction;
+               getLayoutManager().scrollToFraction(fraction);
+               recyclerView.invalidate();
+            }
+            break;
+
+         case MotionEvent.ACTION_UP:
+         case MotionEvent.ACTION_CANCEL:
+            mDragging = false;
+            recyclerView.invalidate();
+            break;
+      }
+   }
+
+   @Override
+   public void onRequestDisallowInterceptTouchEvent(boolean disallowIntercept) {
+   }
+
+   private boolean isOverThumb(float x, float y) {
+      final int scrollRange = mRecyclerView.computeVerticalScrollRange() - mRecyclerView.computeVerticalScrollExtent();
+      if (scrollRange <= 0 || getLayoutManager() == null) {
+         return false;
+      }
+
+      final float fraction = Math.min(1.0f, (float)mRecyclerView.computeVerticalScrollOffset() / scrollRange);
+      final float thumbTop = fraction * getThumbTravel();
+      final int right = mRecyclerView.getWidth() - mRecyclerView.getPaddingRight();
+      return x >= right - mTouchWidth && x <= right && y >= thumbTop && y <= thumbTop + mThumbHeight;
+   }
+
+   private int getThumbTravel() {
+      return Math.max(0, mRecyclerView.getHeight() - mThumbHeight);
+   }
+
+   private StickyHeaderGridLayoutManager getLayoutManager() {
+      final RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+      return layoutManager instanceof StickyHeaderGridLayoutManager ? (StickyHeaderGridLayoutManager)layoutManager : null;
+   }
+}
@@ -2,12 +2,17 @@ package com.codewaves.stickyheadergrid;
 
 import android.content.Context;
 import android.graphics.PointF;
+import android.graphics.Rect;
 import android.os.Parcel;
 import android.os.Parcelable;
+import android.os.SystemClock;
+import android.support.v4.util.LongSparseArray;
 import android.support.v7.widget.LinearSmoothScroller;
 import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
 import android.view.View;
 import android.view.ViewGroup;
 
@@ -28,6 +33,13 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
    public static final String TAG = "StickyLayoutManager";
 
    private static final int DEFAULT_ROW_COUNT = 16;
+   private static final int DEFAULT_PREFETCH_ROW_COUNT = 1;
+   private static final int DEFAULT_INITIAL_PREFETCH_ITEM_COUNT = 2;
+   private static final int DEFAULT_HEADER_VIEW_CACHE_SIZE = 2;
+
+   // Adaptive extra layout space lays out the distance scrolled in this time ahead of the viewport
+   private static final int EXTRA_LAYOUT_LOOKAHEAD_MS = 100;
+   private static final int SCROLL_VELOCITY_TIMEOUT_MS = 100;
 
    private int mSpanCount;
    private SpanSizeLookup mSpanSizeLookup = new DefaultSpanSizeLookup();
@@ -39,9 +51,15 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
    private View mFloatingHeaderView;
    private int mFloatingHeaderPosition;
    private int mStickOffset;
-   private int mAverageHeaderHeight;
+   private boolean mStickyHeaderTranslationEnabled;
+   private View mTranslatedHeaderView;
+   private final HeaderViewCache mHeaderViewCache = new HeaderViewCache(DEFAULT_HEADER_VIEW_CACHE_SIZE);
+   private RecyclerView mRecyclerView;
    private int mHeaderOverlapMargin;
 
+   private int mPrefetchRowCount = DEFAULT_PREFETCH_ROW_COUNT;
+   private int mInitialPrefetchItemCount = DEFAULT_INITIAL_PREFETCH_ITEM_COUNT;
+
    private HeaderStateChangeListener mHeaderStateListener;
    private int mStickyHeaderSection = NO_POSITION;
    private View mStickyHeaderView;
@@ -52,10 +70,120 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
    private SavedState mPendingSavedState;
    private int mPendingScrollPosition = NO_POSITION;
    private int mPendingScrollPositionOffset;
+   private boolean mPendingScrollBelowHeader;
    private AnchorPosition mAnchor = new AnchorPosition();
 
+   private final StickyHeaderGridAdapter.SectionObserver mSectionObserver = new StickyHeaderGridAdapter.SectionObserver() {
+      @Override
+      public void onSectionsChanged() {
+         invalidateSectionCaches();
+      }
+
+      @Override
+      public void onSectionInserted(int section) {
+         offsetSectionCaches(section, 1);
+         if (mSectionHeightsValid) {
+            mSectionHeights.insert(section, calculateSectionHeight(section));
+         }
+      }
+
+      @Override
+      public void onSectionRemoved(int section) {
+         mSectionRows.remove(section);
+         mHeaderHeights.delete(section);
+         mSpanSizeLookup.invalidateSpanIndexCache(section);
+         offsetSectionCaches(section + 1, -1);
+         if (mSectionHeightsValid) {
+            mSectionHeights.remove(section);
+         }
+      }
+
+      @Override
+      public void onSectionHeaderChanged(int section) {
+         mHeaderHeights.delete(section);
+      }
+
+      @Override
+      public void onSectionItemsChanged(int section) {
+         invalidateSectionCaches(section);
+         updateSectionHeight(section);
+      }
+
+      @Override
+      public void onItemBound(int position) {
+         // Bound content may have a different size
+         if (mMeasureCache.size() > 0) {
+            mMeasureCache.remove(getMeasureCacheKey(position));
+         }
+      }
+   };
+
+   // Registered after the RecyclerView observer, so it runs first and cached header views reach
+   // the recycler before RecyclerView updates or invalidates its views
+   private final RecyclerView.AdapterDataObserver mHeaderCacheObserver = new RecyclerView.AdapterDataObserver() {
+      @Override
+      public void onChanged() {
+         mHeaderViewCache.evictAll();
+      }
+
+      @Override
+      public void onItemRangeChanged(int positionStart, int itemCount) {
+         mHeaderViewCache.evict(positionStart, itemCount);
+      }
+
+      @Override
+      public void onItemRangeInserted(int positionStart, int itemCount) {
+         mHeaderViewCache.evictAll();
+      }
+
+      @Override
+      public void onItemRangeRemoved(int positionStart, int itemCount) {
+         mHeaderViewCache.evictAll();
+      }
+
+      @Override
+      public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+         mHeaderViewCache.evictAll();
+      }
+   };
+
+   private final SparseArray<SectionRows> mSectionRows = new SparseArray<>();
+   private final SparseIntArray mHeaderHeights = new SparseIntArray();
+   private int mMeasuredWidth;
+
+   private int mFixedItemHeight;
+   private int mFixedHeaderHeight;
+   private final FenwickTree mSectionHeights = new FenwickTree();
+   private boolean mSectionHeightsValid;
+   private final HeightEstimator mHeightEstimator = new HeightEstimator();
+   private int mEstimateGeneration = 1;
+   private final Rect mDecorInsets = new Rect();
+
+   private boolean mMeasureCacheEnabled;
+   private final LongSparseArray<MeasureCacheEntry> mMeasureCache = new LongSparseArray<>();
+
+   private boolean mAdaptiveExtraLayoutSpaceEnabled;
+   private final int[] mExtraLayoutSpace = new int[2];
+   private float mScrollVelocity;
+   private long mLastScrollTime;
+
+   private int mFastBindVelocity;
+   private boolean mFastBinding;
+   private final Runnable mRebindRunnable = new Runnable() {
+      @Override
+      public void run() {
+         // Fast bound items are bound again when the layout pass reuses them
+         if (!mFastBinding && hasFastBoundChildren()) {
+            requestLayout();
+         }
+      }
+   };
+
+   private int mScrollOffset;
+   private int mScrollRange;
+
    private final FillResult mFillResult = new FillResult();
-   private ArrayList<LayoutRow> mLayoutRows = new ArrayList<>(DEFAULT_ROW_COUNT);
+   private final LayoutRows mLayoutRows = new LayoutRows(DEFAULT_ROW_COUNT);
 
    public enum HeaderState {
       NORMAL,
@@ -113,6 +241,7 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
       if (mSpanSizeLookup == null) {
          mSpanSizeLookup = new DefaultSpanSizeLookup();
       }
+      invalidateSectionCaches();
    }
 
    /**
@@ -151,6 +280,220 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
     */
    public void setHeaderBottomOverlapMargin(int bottomMargin) {
       mHeaderOverlapMargin = bottomMargin;
+      mHeaderHeights.clear();
+      mSectionHeightsValid = false;
+   }
+
+   /**
+    * Sets the height of every item, including item decoration offsets. Together with
+    * {@link #setFixedHeaderHeight(int)} enables the fixed height mode: items and headers are measured
+    * with exact sizes, row positions are calculated instead of laid out one by one, scrolling to a
+    * position needs a single layout pass and the scroll range is reported in exact pixels.
+    * Custom span size lookups should implement {@link SpanSizeLookup#getSectionSpanSize(int)},
+    * rows of sections with mixed span sizes are only counted exactly once they are visited.
+    *
+    * @param height Item height in pixels, 0 to measure items
+    */
+   public void setFixedItemHeight(int height) {
+      mFixedItemHeight = Math.max(0, height);
+      mSectionHeightsValid = false;
+      requestLayout();
+   }
+
+   /**
+    * Returns the fixed item height.
+    *
+    * @return The item height in pixels, or 0 if items are measured.
+    */
+   public int getFixedItemHeight() {
+      return mFixedItemHeight;
+   }
+
+   /**
+    * Sets the height of every header, including item decoration offsets and header bottom
+    * overlap margin.
+    *
+    * @param height Header height in pixels, 0 to measure headers
+    *
+    * @see #setFixedItemHeight(int)
+    */
+   public void setFixedHeaderHeight(int height) {
+      mFixedHeaderHeight = Math.max(0, height);
+      mSectionHeightsValid = false;
+      requestLayout();
+   }
+
+   /**
+    * Returns the fixed header height.
+    *
+    * @return The header height in pixels, or 0 if headers are measured.
+    */
+   public int getFixedHeaderHeight() {
+      return mFixedHeaderHeight;
+   }
+
+   /**
+    * Enables or disables moving sticky and pushed headers with translation. When enabled, header
+    * layout bounds are not changed while scrolling and only the render translation of the header
+    * is updated. Header translation is reset when the header stops being sticky.
+    *
+    * @param enabled Whether to use <code>setTranslationY</code> to position sticky headers
+    */
+   public void setStickyHeaderTranslationEnabled(boolean enabled) {
+      if (mStickyHeaderTranslationEnabled != enabled) {
+         mStickyHeaderTranslationEnabled = enabled;
+         setHeaderTranslation(null, 0);
+
+         // Undo the layout offset of the sticky header, translation mode never does it
+         final int firstHeader = getFirstVisibleSectionHeader();
+         if (firstHeader != NO_POSITION) {
+            mLayoutRows.getHeaderView(firstHeader).offsetTopAndBottom(-mStickOffset);
+         }
+         mStickOffset = 0;
+         requestLayout();
+      }
+   }
+
+   /**
+    * Returns whether sticky headers are positioned with translation.
+    *
+    * @return True if sticky headers are moved with <code>setTranslationY</code>.
+    */
+   public boolean isStickyHeaderTranslationEnabled() {
+      return mStickyHeaderTranslationEnabled;
+   }
+
+   /**
+    * Sets the number of floating header views kept bound after they stop floating. Scrolling back
+    * and forth across a section boundary then reattaches the same header view instead of
+    * recycling, binding and measuring it again. Cached views are handed to the recycler when the
+    * adapter changes them or moves positions, the recycler keeps them if they are still valid.
+    *
+    * @param size Number of cached header views, 0 disables the cache
+    */
+   public void setHeaderViewCacheSize(int size) {
+      mHeaderViewCache.setCapacity(Math.max(0, size));
+   }
+
+   /**
+    * Returns the number of floating header views kept bound.
+    *
+    * @return The header view cache size.
+    */
+   public int getHeaderViewCacheSize() {
+      return mHeaderViewCache.getCapacity();
+   }
+
+   /**
+    * Sets the number of rows to prefetch in the scroll direction while RecyclerView is idle
+    * between frames. If the last prefetched row ends a section, the header of the next section is
+    * prefetched as well.
+    *
+    * @param rowCount Number of rows to prefetch, 0 disables prefetch
+    */
+   public void setPrefetchRowCount(int rowCount) {
+      mPrefetchRowCount = Math.max(0, rowCount);
+   }
+
+   /**
+    * Returns the number of rows prefetched in the scroll direction.
+    *
+    * @return The number of prefetched rows.
+    */
+   public int getPrefetchRowCount() {
+      return mPrefetchRowCount;
+   }
+
+   /**
+    * Sets the number of items to prefetch when this layout manager is used by a RecyclerView
+    * nested in another scrolling RecyclerView.
+    *
+    * @param itemCount Number of items to prefetch
+    *
+    * @see #collectInitialPrefetchPositions(int, LayoutPrefetchRegistry)
+    */
+   public void setInitialPrefetchItemCount(int itemCount) {
+      mInitialPrefetchItemCount = itemCount;
+   }
+
+   /**
+    * Returns the number of items prefetched when the RecyclerView is nested.
+    *
+    * @return The number of items to prefetch.
+    */
+   public int getInitialPrefetchItemCount() {
+      return mInitialPrefetchItemCount;
+   }
+
+   /**
+    * Enables or disables the item measurement cache. When enabled, an item view that is laid out
+    * again at the same position (or stable id), with the same span width and view type, is not
+    * measured again unless it was bound again, invalidated or requested a layout. Useful for items
+    * that are expensive to measure. Items are measured again when their decoration insets change
+    * after adding, removing or invalidating item decorations.
+    *
+    * @param enabled Whether to skip measuring unchanged items
+    */
+   public void setMeasureCacheEnabled(boolean enabled) {
+      mMeasureCacheEnabled = enabled;
+      if (!enabled) {
+         mMeasureCache.clear();
+      }
+   }
+
+   /**
+    * Returns whether the item measurement cache is enabled.
+    *
+    * @return True if unchanged items are not measured again.
+    */
+   public boolean isMeasureCacheEnabled() {
+      return mMeasureCacheEnabled;
+   }
+
+   /**
+    * Enables or disables velocity adaptive extra layout space. When enabled, rows are laid out
+    * ahead of the viewport in the scroll direction, as far as the content travels in about
+    * 100ms at the current scroll velocity, but not more than the viewport height. Rows behind
+    * the viewport are recycled as usual. The extra space shrinks back to zero when scrolling stops.
+    *
+    * @param enabled Whether to lay out rows ahead of a fast scroll
+    *
+    * @see #calculateExtraLayoutSpace(RecyclerView.State, int[])
+    */
+   public void setAdaptiveExtraLayoutSpaceEnabled(boolean enabled) {
+      mAdaptiveExtraLayoutSpaceEnabled = enabled;
+   }
+
+   /**
+    * Returns whether velocity adaptive extra layout space is enabled.
+    *
+    * @return True if rows are laid out ahead of a fast scroll.
+    */
+   public boolean isAdaptiveExtraLayoutSpaceEnabled() {
+      return mAdaptiveExtraLayoutSpaceEnabled;
+   }
+
+   /**
+    * Sets the scroll velocity above which items are bound with
+    * {@link StickyHeaderGridAdapter#onBindItemViewHolderFast(StickyHeaderGridAdapter.ItemViewHolder, int, int)}.
+    * When scrolling stops, items that are still bound this way are bound again with the full bind.
+    *
+    * @param velocity Velocity in pixels per second, 0 disables fast binding
+    */
+   public void setFastBindVelocity(int velocity) {
+      mFastBindVelocity = Math.max(0, velocity);
+      if (mFastBindVelocity == 0) {
+         stopFastBinding();
+      }
+   }
+
+   /**
+    * Returns the scroll velocity above which items are bound with the fast bind.
+    *
+    * @return The velocity in pixels per second, 0 if fast binding is disabled.
+    */
+   public int getFastBindVelocity() {
+      return mFastBindVelocity;
    }
 
    @Override
@@ -158,12 +501,14 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
       super.onAdapterChanged(oldAdapter, newAdapter);
 
       try {
-         mAdapter = (StickyHeaderGridAdapter)newAdapter;
+         setAdapter((StickyHeaderGridAdapter)newAdapter);
       }
       catch (ClassCastException e) {
          throw new ClassCastException("Adapter used with StickyHeaderGridLayoutManager must be kind of StickyHeaderGridAdapter");
       }
 
+      // Cached views belong to the old adapter, never put them into the pool
+      mHeaderViewCache.clear();
       removeAllViews();
       clearState();
    }
@@ -171,15 +516,408 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
    @Override
    public void onAttachedToWindow(RecyclerView view) {
       super.onAttachedToWindow(view);
+      mRecyclerView = view;
 
       try {
-         mAdapter = (StickyHeaderGridAdapter)view.getAdapter();
+         setAdapter((StickyHeaderGridAdapter)view.getAdapter());
       }
       catch (ClassCastException e) {
          throw new ClassCastException("Adapter used with StickyHeaderGridLayoutManager must be kind of StickyHeaderGridAdapter");
       }
    }
 
+   @Override
+   public void onDetachedFromWindow(RecyclerView view, RecyclerView.Recycler recycler) {
+      super.onDetachedFromWindow(view, recycler);
+
+      // Changes made while detached are not observed, caches are reset on next attach
+      if (mAdapter != null) {
+         mAdapter.unregisterSectionObserver(mSectionObserver);
+         mAdapter.unregisterAdapterDataObserver(mHeaderCacheObserver);
+      }
+      mHeaderViewCache.evictAll();
+      mRecyclerView = null;
+
+      removeCallbacks(mRebindRunnable);
+      mFastBinding = false;
+   }
+
+   private void setAdapter(StickyHeaderGridAdapter adapter) {
+      if (mAdapter != null) {
+         mAdapter.unregisterSectionObserver(mSectionObserver);
+         mAdapter.unregisterAdapterDataObserver(mHeaderCacheObserver);
+      }
+      mFastBinding = false;
+
+      mAdapter = adapter;
+      if (mAdapter != null) {
+         mAdapter.registerSectionObserver(mSectionObserver);
+         mAdapter.registerAdapterDataObserver(mHeaderCacheObserver);
+      }
+      invalidateSectionCaches();
+      mMeasureCache.clear();
+   }
+
+   @Override
+   public void onItemsChanged(RecyclerView recyclerView) {
+      mMeasureCache.clear();
+   }
+
+   @Override
+   public void onItemsAdded(RecyclerView recyclerView, int positionStart, int itemCount) {
+      onItemsShifted();
+   }
+
+   @Override
+   public void onItemsRemoved(RecyclerView recyclerView, int positionStart, int itemCount) {
+      onItemsShifted();
+   }
+
+   @Override
+   public void onItemsMoved(RecyclerView recyclerView, int from, int to, int itemCount) {
+      onItemsShifted();
+   }
+
+   @Override
+   public void onItemsUpdated(RecyclerView recyclerView, int positionStart, int itemCount) {
+      forgetMeasuredItems(positionStart, itemCount);
+   }
+
+   private void onItemsShifted() {
+      // Stable ids survive structural changes, positions do not
+      if (mAdapter == null || !mAdapter.hasStableIds()) {
+         mMeasureCache.clear();
+      }
+   }
+
+   private void measureItemView(View v, int widthUsed) {
+      if (isFixedHeightMode()) {
+         measureChildWithExactHeight(v, widthUsed, mFixedItemHeight);
+      }
+      else {
+         measureChildWithMargins(v, widthUsed, 0);
+      }
+   }
+
+   private void measureHeaderView(View v) {
+      if (isFixedHeightMode()) {
+         measureChildWithExactHeight(v, 0, mFixedHeaderHeight);
+      }
+      else {
+         measureChildWithMargins(v, 0, 0);
+      }
+   }
+
+   private void measureChildWithExactHeight(View v, int widthUsed, int height) {
+      // Measure pass itself can not be skipped, but exact specs let unchanged views return early
+      final LayoutParams params = (LayoutParams)v.getLayoutParams();
+      calculateItemDecorationsForChild(v, mDecorInsets);
+      final int width = getWidth() - getPaddingLeft() - getPaddingRight() - widthUsed
+            - params.leftMargin - params.rightMargin - mDecorInsets.left - mDecorInsets.right;
+      final int widthSpec = View.MeasureSpec.makeMeasureSpec(Math.max(0, width), View.MeasureSpec.EXACTLY);
+      final int heightSpec = View.MeasureSpec.makeMeasureSpec(Math.max(0, height - mDecorInsets.top - mDecorInsets.bottom), View.MeasureSpec.EXACTLY);
+      v.measure(widthSpec, heightSpec);
+   }
+
+   private boolean isFixedHeightMode() {
+      return mFixedItemHeight > 0 && mFixedHeaderHeight > 0;
+   }
+
+   private int getFixedHeaderRowHeight() {
+      return mFixedHeaderHeight - Math.min(mHeaderOverlapMargin, mFixedHeaderHeight);
+   }
+
+   private int calculateSectionHeight(int section) {
+      if (isFixedHeightMode()) {
+         return getFixedHeaderRowHeight() + getSectionRowCount(section) * mFixedItemHeight;
+      }
+      return estimateHeaderRowHeight(section) + getSectionRowCount(section) * estimateRowHeight(section);
+   }
+
+   private int getSectionRowCount(int section) {
+      final SectionRows rows = mSectionRows.get(section);
+      if (rows != null) {
+         return rows.getRowCount();
+      }
+
+      // Building row tables of all sections is too expensive. Uniform span sizes give the exact
+      // count, otherwise assume single span items until the section is visited.
+      final int uniformItemsPerRow = getUniformItemsPerRow(section);
+      final int itemsPerRow = uniformItemsPerRow > 0 ? uniformItemsPerRow : mSpanCount;
+      return (mAdapter.getSectionItemCount(section) + itemsPerRow - 1) / itemsPerRow;
+   }
+
+   /**
+    * Returns the number of items in every row of <code>section</code>, or 0 if its span sizes
+    * are not uniform and rows have to be found in the section row table.
+    */
+   private int getUniformItemsPerRow(int section) {
+      final int spanSize = mSpanSizeLookup.getSectionSpanSize(section);
+      return spanSize > 0 ? Math.max(1, mSpanCount / spanSize) : 0;
+   }
+
+   private int findSectionRow(int section, int offset) {
+      final int itemsPerRow = getUniformItemsPerRow(section);
+      return itemsPerRow > 0 ? offset / itemsPerRow : getSectionRows(section).findRow(offset);
+   }
+
+   private int getSectionRowStart(int section, int row) {
+      final int itemsPerRow = getUniformItemsPerRow(section);
+      return itemsPerRow > 0 ? row * itemsPerRow : getSectionRows(section).getRowStart(row);
+   }
+
+   private int estimateHeaderRowHeight(int section) {
+      if (isFixedHeightMode()) {
+         return getFixedHeaderRowHeight();
+      }
+
+      final int height = mHeaderHeights.get(section, NO_POSITION);
+      if (height != NO_POSITION) {
+         return height;
+      }
+      return mHeightEstimator.estimateHeaderHeight(mAdapter.getItemViewType(mAdapter.getSectionHeaderPosition(section)));
+   }
+
+   private int estimateRowHeight(int section) {
+      if (isFixedHeightMode()) {
+         return mFixedItemHeight;
+      }
+
+      if (mAdapter.getSectionItemCount(section) == 0) {
+         return 0;
+      }
+      return mHeightEstimator.estimateRowHeight(section, mAdapter.getItemViewType(mAdapter.getSectionItemPosition(section, 0)));
+   }
+
+   /**
+    * Returns cumulative heights of all sections. Exact in fixed height mode, estimated from
+    * measured rows otherwise. Rebuilt only after invalidation, section inserts, removals and
+    * measured rows update single entries. Drifted estimates are republished by the next layout
+    * pass, not while scrolling.
+    */
+   private FenwickTree getSectionHeights() {
+      if (!mSectionHeightsValid) {
+         final int sectionCount = mAdapter.getSectionCount();
+         mSectionHeightsValid = false;
+         mHeightEstimator.markFresh();
+         mSectionHeights.clear(sectionCount);
+         for (int section = 0; section < sectionCount; ++section) {
+            mSectionHeights.append(calculateSectionHeight(section));
+         }
+         mSectionHeightsValid = true;
+      }
+      return mSectionHeights;
+   }
+
+   private void updateSectionHeight(int section) {
+      if (mSectionHeightsValid && section < mSectionHeights.size()) {
+         mSectionHeights.set(section, calculateSectionHeight(section));
+      }
+   }
+
+   /**
+    * Adds the row just filled into {@link #mFillViewSet} to the height estimates, unless all its
+    * views were already counted since they were bound.
+    */
+   private void onRowMeasured(FillResult result) {
+      if (isFixedHeightMode() || !markRowEstimated(result.length)) {
+         return;
+      }
+
+      final int section = mAdapter.getAdapterPositionSection(result.adapterPosition);
+      if (mHeightEstimator.addRow(section, mAdapter.getItemViewType(result.adapterPosition), result.height)) {
+         updateSectionHeight(section);
+      }
+   }
+
+   private boolean markRowEstimated(int length) {
+      if (mRecyclerView == null) {
+         return true;
+      }
+
+      boolean counted = true;
+      for (int i = 0; i < length; ++i) {
+         final RecyclerView.ViewHolder holder = mRecyclerView.getChildViewHolder(mFillViewSet[i]);
+         if (holder instanceof StickyHeaderGridAdapter.ViewHolder) {
+            final StickyHeaderGridAdapter.ViewHolder gridHolder = (StickyHeaderGridAdapter.ViewHolder)holder;
+            if (gridHolder.mEstimateGeneration != mEstimateGeneration) {
+               gridHolder.mEstimateGeneration = mEstimateGeneration;
+               counted = false;
+            }
+         }
+      }
+      return !counted;
+   }
+
+   /**
+    * Returns the top edge of the row containing <code>adapterPosition</code>, relative to the
+    * top of the content.
+    */
+   private int getRowTop(int adapterPosition) {
+      final int section = mAdapter.getAdapterPositionSection(adapterPosition);
+      final int offset = mAdapter.getItemSectionOffset(section, adapterPosition);
+      if (offset < 0) {
+         return getSectionHeights().sum(section);
+      }
+
+      final int row = findSectionRow(section, offset);
+      return getSectionHeights().sum(section) + estimateHeaderRowHeight(section) + row * estimateRowHeight(section);
+   }
+
+   /**
+    * Returns the adapter position of the first item in the row at content offset <code>y</code>.
+    * Uses the same row geometry as {@link #getRowTop(int)}. Rows of sections with uniform span
+    * sizes are computed, other sections build their row table once on the first lookup.
+    */
+   private int findRowPosition(int y) {
+      final FenwickTree heights = getSectionHeights();
+      final int section = Math.min(heights.find(y), heights.size() - 1);
+      final int rowCount = getUniformItemsPerRow(section) > 0
+            ? getSectionRowCount(section) : getSectionRows(section).getRowCount();
+      final int rowOffset = y - heights.sum(section) - estimateHeaderRowHeight(section);
+      final int rowHeight = estimateRowHeight(section);
+      if (rowOffset < 0 || rowCount == 0) {
+         return mAdapter.getSectionHeaderPosition(section);
+      }
+
+      final int row = rowHeight > 0 ? Math.min(rowOffset / rowHeight, rowCount - 1) : 0;
+      return mAdapter.getSectionItemPosition(section, getSectionRowStart(section, row));
+   }
+
+   private long getMeasureCacheKey(int adapterPosition) {
+      return mAdapter.hasStableIds() ? mAdapter.getItemId(adapterPosition) : adapterPosition;
+   }
+
+   private void forgetMeasuredItems(int positionStart, int itemCount) {
+      if (mMeasureCache.size() == 0 || mAdapter == null) {
+         return;
+      }
+
+      final int end = Math.min(positionStart + itemCount, mAdapter.getItemCount());
+      for (int i = positionStart; i < end; ++i) {
+         mMeasureCache.remove(getMeasureCacheKey(i));
+      }
+   }
+
+   private void measureItem(View v, int adapterPosition, int widthUsed) {
+      if (!mMeasureCacheEnabled) {
+         measureItemView(v, widthUsed);
+         return;
+      }
+
+      final long key = getMeasureCacheKey(adapterPosition);
+      final int viewType = getItemViewType(v);
+      final LayoutParams params = (LayoutParams)v.getLayoutParams();
+      MeasureCacheEntry entry = mMeasureCache.get(key);
+      if (entry != null && entry.widthUsed == widthUsed && entry.viewType == viewType
+            && entry.measuredWidth == v.getMeasuredWidth() && entry.measuredHeight == v.getMeasuredHeight()
+            && !v.isLayoutRequested() && !params.isItemChanged() && !params.isViewInvalid()) {
+         // Entries are dropped on bind, so this is the view measured last pass. Decorations can
+         // change without a bind, this recalculates dirty insets and keeps clean ones.
+         calculateItemDecorationsForChild(v, mDecorInsets);
+         if (mDecorInsets.equals(entry.decorInsets)) {
+            return;
+         }
+      }
+
+      measureItemView(v, widthUsed);
+      if (entry == null) {
+         entry = new MeasureCacheEntry();
+         mMeasureCache.put(key, entry);
+      }
+      calculateItemDecorationsForChild(v, entry.decorInsets);
+      entry.widthUsed = widthUsed;
+      entry.viewType = viewType;
+      entry.measuredWidth = v.getMeasuredWidth();
+      entry.measuredHeight = v.getMeasuredHeight();
+   }
+
+   private void invalidateSectionCaches() {
+      mSpanSizeLookup.invalidateSpanIndexCache();
+      mSectionRows.clear();
+      mHeaderHeights.clear();
+      mHeightEstimator.clearSections();
+      mSectionHeightsValid = false;
+   }
+
+   private void offsetSectionCaches(int sectionStart, int delta) {
+      offsetSectionKeys(mSectionRows, sectionStart, delta);
+      offsetSectionKeys(mHeaderHeights, sectionStart, delta);
+      mSpanSizeLookup.offsetSpanIndexCache(sectionStart, delta);
+      if (delta > 0) {
+         mHeightEstimator.insertSection(sectionStart);
+      }
+      else {
+         mHeightEstimator.removeSection(sectionStart - 1);
+      }
+   }
+
+   /**
+    * Moves entries of a section keyed cache at and after <code>sectionStart</code> by
+    * <code>delta</code> sections. Keys are sorted, so only the tail is moved.
+    */
+   private static <E> void offsetSectionKeys(SparseArray<E> array, int sectionStart, int delta) {
+      int index = array.size();
+      while (index > 0 && array.keyAt(index - 1) >= sectionStart) {
+         index--;
+      }
+
+      final int count = array.size() - index;
+      final int[] keys = new int[count];
+      final ArrayList<E> values = new ArrayList<>(count);
+      for (int i = 0; i < count; ++i) {
+         keys[i] = array.keyAt(index + i);
+         values.add(array.valueAt(index + i));
+      }
+      for (int i = count - 1; i >= 0; --i) {
+         array.removeAt(index + i);
+      }
+      for (int i = 0; i < count; ++i) {
+         array.put(keys[i] + delta, values.get(i));
+      }
+   }
+
+   private static void offsetSectionKeys(SparseIntArray array, int sectionStart, int delta) {
+      int index = array.size();
+      while (index > 0 && array.keyAt(index - 1) >= sectionStart) {
+         index--;
+      }
+
+      final int count = array.size() - index;
+      final int[] keys = new int[count];
+      final int[] values = new int[count];
+      for (int i = 0; i < count; ++i) {
+         keys[i] = array.keyAt(index + i);
+         values[i] = array.valueAt(index + i);
+      }
+      for (int i = count - 1; i >= 0; --i) {
+         array.removeAt(index + i);
+      }
+      for (int i = 0; i < count; ++i) {
+         array.put(keys[i] + delta, values[i]);
+      }
+   }
+
+   private void invalidateSectionCaches(int section) {
+      mSpanSizeLookup.invalidateSpanIndexCache(section);
+      mSectionRows.remove(section);
+   }
+
+   private SectionRows getSectionRows(int section) {
+      SectionRows rows = mSectionRows.get(section);
+      if (rows == null) {
+         rows = new SectionRows();
+         rows.build(mSpanSizeLookup, section, mAdapter.getSectionItemCount(section), mSpanCount);
+         mSectionRows.put(section, rows);
+
+         // Section height may have used the single span row count
+         if (mSpanSizeLookup.getSectionSpanSize(section) <= 0) {
+            updateSectionHeight(section);
+         }
+      }
+      return rows;
+   }
+
    @Override
    public RecyclerView.LayoutParams generateDefaultLayoutParams() {
       return new LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
@@ -256,21 +994,245 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
          throw new IndexOutOfBoundsException("adapter position out of range");
       }
 
-      mPendingScrollPosition = position;
-      mPendingScrollPositionOffset = 0;
-      if (mPendingSavedState != null) {
-         mPendingSavedState.invalidateAnchor();
+      mPendingScrollPosition = position;
+      mPendingScrollPositionOffset = 0;
+      mPendingScrollBelowHeader = true;
+      if (mPendingSavedState != null) {
+         mPendingSavedState.invalidateAnchor();
+      }
+      requestLayout();
+   }
+
+   /**
+    * <p>Scroll to the specified adapter position with the given offset from the top padding.
+    * Unlike {@link #scrollToPosition(int)} the item is not moved below the sticky header.</p>
+    *
+    * <p>Note that scroll position change will not be reflected until the next layout call.</p>
+    *
+    * @param position Index (starting at 0) of the reference item
+    * @param offset The distance (in pixels) between the top padding and the top edge of the
+    *               row containing the reference item. Positive offsets are treated as 0.
+    */
+   public void scrollToPositionWithOffset(int position, int offset) {
+      if (position < 0 || position > getItemCount()) {
+         throw new IndexOutOfBoundsException("adapter position out of range");
+      }
+
+      mPendingScrollPosition = position;
+      mPendingScrollPositionOffset = offset;
+      mPendingScrollBelowHeader = false;
+      if (mPendingSavedState != null) {
+         mPendingSavedState.invalidateAnchor();
+      }
+      requestLayout();
+   }
+
+   /**
+    * Scrolls to the content offset at <code>fraction</code> of the scroll range. Rows in between
+    * are not laid out, the target section is found in O(log n) using section heights. The row
+    * inside the section is computed if {@link SpanSizeLookup#getSectionSpanSize(int)} reports
+    * uniform span sizes, otherwise the first jump into the section builds its row table in
+    * O(items in section).
+    *
+    * @param fraction fraction of the scroll range in range [0, 1]
+    */
+   void scrollToFraction(float fraction) {
+      if (mAdapter == null || mAdapter.getItemCount() == 0) {
+         return;
+      }
+
+      final int viewportHeight = getHeight() - getPaddingTop() - getPaddingBottom();
+      final int maxScroll = Math.max(0, getSectionHeights().getTotal() - viewportHeight);
+      final int y = Math.round(maxScroll * Math.min(Math.max(fraction, 0.0f), 1.0f));
+      final int position = findRowPosition(y);
+      scrollToPositionWithOffset(position, getRowTop(position) - y);
+   }
+
+   /**
+    * Returns the section of the first visible row.
+    *
+    * @return The section index, or NO_POSITION if nothing is laid out.
+    */
+   int getFirstVisibleSection() {
+      final int firstVisibleRow = getFirstVisibleRow();
+      if (firstVisibleRow == NO_POSITION) {
+         return NO_POSITION;
+      }
+      return mAdapter.getAdapterPositionSection(mLayoutRows.getAdapterPosition(firstVisibleRow));
+   }
+
+   /**
+    * Counts views per view type needed to fill a viewport of <code>viewportHeight</code> from the
+    * position the next layout starts at, including prefetched rows and the sticky header. Fixed
+    * heights are used if set, provided estimates otherwise.
+    *
+    * @param adapter adapter to query, may not be attached yet
+    * @param viewportHeight height to fill
+    * @param itemRowHeight estimated item row height
+    * @param headerHeight estimated header height
+    * @param counts output, view counts keyed by adapter view type
+    */
+   void countViewTypes(StickyHeaderGridAdapter adapter, int viewportHeight, int itemRowHeight, int headerHeight, SparseIntArray counts) {
+      final int rowHeight = Math.max(1, mFixedItemHeight > 0 ? mFixedItemHeight : itemRowHeight);
+      final int sectionHeaderHeight = Math.max(1, mFixedHeaderHeight > 0 ? mFixedHeaderHeight : headerHeight);
+      final int itemCount = adapter.getItemCount();
+
+      int position = adapter == mAdapter ? getLayoutStartPosition() : getPendingStartPosition(adapter);
+      int top = 0;
+      int extraRows = mPrefetchRowCount;
+      if (position < itemCount && adapter.getItemViewInternalType(position) != TYPE_HEADER) {
+         // Header of the first section sticks at the top
+         final int headerViewType = adapter.getItemViewType(
+               adapter.getSectionHeaderPosition(adapter.getAdapterPositionSection(position)));
+         counts.put(headerViewType, counts.get(headerViewType) + 1);
+      }
+      while (position < itemCount) {
+         if (top >= viewportHeight) {
+            if (extraRows == 0) {
+               break;
+            }
+            extraRows--;
+         }
+
+         final int viewType = adapter.getItemViewType(position);
+         counts.put(viewType, counts.get(viewType) + 1);
+
+         if (adapter.getItemViewInternalType(position) == TYPE_HEADER) {
+            top += Math.max(1, sectionHeaderHeight - mHeaderOverlapMargin);
+            position++;
+            continue;
+         }
+
+         // Rows are filled from the section start, so the first row item has span index 0
+         final int section = adapter.getAdapterPositionSection(position);
+         final int sectionItemCount = adapter.getSectionItemCount(section);
+         int offset = adapter.getItemSectionOffset(section, position);
+         int spanIndex = mSpanSizeLookup.getSpanSize(section, offset);
+         position++;
+         offset++;
+         while (offset < sectionItemCount) {
+            final int spanSize = mSpanSizeLookup.getSpanSize(section, offset);
+            if (spanIndex + spanSize > mSpanCount) {
+               break;
+            }
+            final int itemViewType = adapter.getItemViewType(position);
+            counts.put(itemViewType, counts.get(itemViewType) + 1);
+            spanIndex += spanSize;
+            position++;
+            offset++;
+         }
+         top += rowHeight;
+      }
+   }
+
+   /**
+    * Calculates the amount of extra space in pixels that should be laid out above and below the
+    * viewport. Rows in this space are created before they become visible and are not recycled
+    * until they leave it. Override to change the default behaviour, which lays out one extra
+    * viewport in both directions while smooth scrolling to a target position, and velocity
+    * dependent space in the scroll direction if adaptive extra layout space is enabled.
+    *
+    * @param state Current state of RecyclerView
+    * @param extraLayoutSpace Output array, index 0 is the space above and index 1 the space
+    *                         below the viewport
+    *
+    * @see #setAdaptiveExtraLayoutSpaceEnabled(boolean)
+    */
+   protected void calculateExtraLayoutSpace(RecyclerView.State state, int[] extraLayoutSpace) {
+      if (state.hasTargetScrollPosition()) {
+         extraLayoutSpace[0] = getHeight();
+         extraLayoutSpace[1] = getHeight();
+         return;
+      }
+
+      extraLayoutSpace[0] = 0;
+      extraLayoutSpace[1] = 0;
+      if (mAdaptiveExtraLayoutSpaceEnabled && mScrollVelocity != 0) {
+         final int space = (int)Math.min(Math.abs(mScrollVelocity) * EXTRA_LAYOUT_LOOKAHEAD_MS / 1000, getHeight());
+         extraLayoutSpace[mScrollVelocity > 0 ? 1 : 0] = space;
+      }
+   }
+
+   private int[] getExtraLayoutSpace(RecyclerView.State state) {
+      calculateExtraLayoutSpace(state, mExtraLayoutSpace);
+      mExtraLayoutSpace[0] = Math.max(0, mExtraLayoutSpace[0]);
+      mExtraLayoutSpace[1] = Math.max(0, mExtraLayoutSpace[1]);
+      return mExtraLayoutSpace;
+   }
+
+   private void trackScrollVelocity(int dy) {
+      final long now = SystemClock.uptimeMillis();
+      final long elapsed = now - mLastScrollTime;
+      if (elapsed > SCROLL_VELOCITY_TIMEOUT_MS) {
+         mScrollVelocity = 0;
+      }
+      else if (elapsed > 0) {
+         // Smooth out uneven frame times
+         final float velocity = dy * 1000.0f / elapsed;
+         mScrollVelocity = mScrollVelocity == 0 ? velocity : (mScrollVelocity + velocity) / 2;
+      }
+      mLastScrollTime = now;
+   }
+
+   @Override
+   public void onScrollStateChanged(int state) {
+      super.onScrollStateChanged(state);
+      if (state == RecyclerView.SCROLL_STATE_IDLE) {
+         mScrollVelocity = 0;
+         stopFastBinding();
+      }
+   }
+
+   private int getScrollState() {
+      return mRecyclerView != null ? mRecyclerView.getScrollState() : RecyclerView.SCROLL_STATE_IDLE;
+   }
+
+   private void updateFastBinding() {
+      mFastBinding = mFastBindVelocity > 0 && Math.abs(mScrollVelocity) >= mFastBindVelocity;
+   }
+
+   private void stopFastBinding() {
+      mFastBinding = false;
+
+      // Rebind outside of the scroll or layout pass that stopped fast binding
+      removeCallbacks(mRebindRunnable);
+      if (hasFastBoundChildren()) {
+         postOnAnimation(mRebindRunnable);
+      }
+   }
+
+   private boolean hasFastBoundChildren() {
+      if (mRecyclerView == null) {
+         return false;
+      }
+
+      for (int i = 0, n = getChildCount(); i < n; ++i) {
+         final RecyclerView.ViewHolder holder = mRecyclerView.getChildViewHolder(getChildAt(i));
+         if (holder instanceof StickyHeaderGridAdapter.ViewHolder && ((StickyHeaderGridAdapter.ViewHolder)holder).mFastBound) {
+            return true;
+         }
       }
-      requestLayout();
+      return false;
    }
 
-   private int getExtraLayoutSpace(RecyclerView.State state) {
-      if (state.hasTargetScrollPosition()) {
-         return getHeight();
+   private View getItemViewForPosition(RecyclerView.Recycler recycler, int position) {
+      final View view;
+      mAdapter.setFastBinding(mFastBinding);
+      try {
+         view = recycler.getViewForPosition(position);
       }
-      else {
-         return 0;
+      finally {
+         mAdapter.setFastBinding(false);
+      }
+
+      // Cached and scrapped views are reused without a bind
+      if (!mFastBinding && mRecyclerView != null) {
+         final RecyclerView.ViewHolder holder = mRecyclerView.getChildViewHolder(view);
+         if (holder instanceof StickyHeaderGridAdapter.ViewHolder && ((StickyHeaderGridAdapter.ViewHolder)holder).mFastBound) {
+            recycler.bindViewToPosition(view, position);
+         }
       }
+      return view;
    }
 
    @Override
@@ -302,12 +1264,12 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
          return null;
       }
 
-      final LayoutRow firstRow = getFirstVisibleRow();
-      if (firstRow == null) {
+      final int firstRow = getFirstVisibleRow();
+      if (firstRow == NO_POSITION) {
          return null;
       }
 
-      return new PointF(0, targetPosition - firstRow.adapterPosition);
+      return new PointF(0, targetPosition - mLayoutRows.getAdapterPosition(firstRow));
    }
 
    private int getAdapterPositionFromAnchor(AnchorPosition anchor) {
@@ -322,14 +1284,76 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
       return mAdapter.getSectionItemPosition(anchor.section, anchor.item);
    }
 
+   /**
+    * Returns the first row item the next layout starts at: the pending scroll position, the
+    * restored anchor or the current anchor, in the order onLayoutChildren uses them.
+    */
+   private int getLayoutStartPosition() {
+      int position;
+      if (mPendingScrollPosition >= 0) {
+         position = mPendingScrollPosition;
+      }
+      else if (mPendingSavedState != null && mPendingSavedState.hasValidAnchor()) {
+         position = getAdapterPositionChecked(mPendingSavedState.mAnchorSection, mPendingSavedState.mAnchorItem);
+      }
+      else {
+         position = getAdapterPositionChecked(mAnchor.section, mAnchor.item);
+      }
+
+      if (position < 0 || position >= mAdapter.getItemCount()) {
+         return 0;
+      }
+      return findFirstRowItem(position);
+   }
+
+   /**
+    * Start position of the first layout for an adapter that is not attached yet. Only a pending
+    * scroll or restored anchor apply to it, rows are found without touching the section caches.
+    */
+   private int getPendingStartPosition(StickyHeaderGridAdapter adapter) {
+      int position;
+      if (mPendingScrollPosition >= 0) {
+         position = mPendingScrollPosition;
+      }
+      else if (mPendingSavedState != null && mPendingSavedState.hasValidAnchor()) {
+         position = getAdapterPositionChecked(adapter, mPendingSavedState.mAnchorSection, mPendingSavedState.mAnchorItem);
+      }
+      else {
+         return 0;
+      }
+
+      if (position < 0 || position >= adapter.getItemCount()) {
+         return 0;
+      }
+
+      final int section = adapter.getAdapterPositionSection(position);
+      final int sectionPosition = adapter.getItemSectionOffset(section, position);
+      if (sectionPosition <= 0) {
+         return position;
+      }
+
+      final int itemsPerRow = getUniformItemsPerRow(section);
+      if (itemsPerRow > 0) {
+         return position - sectionPosition % itemsPerRow;
+      }
+
+      final SectionRows rows = new SectionRows();
+      rows.build(mSpanSizeLookup, section, adapter.getSectionItemCount(section), mSpanCount);
+      return position - sectionPosition + rows.getRowStart(rows.findRow(sectionPosition));
+   }
+
    private int getAdapterPositionChecked(int section, int offset) {
-      if (section < 0 || section >= mAdapter.getSectionCount()) {
+      return getAdapterPositionChecked(mAdapter, section, offset);
+   }
+
+   private static int getAdapterPositionChecked(StickyHeaderGridAdapter adapter, int section, int offset) {
+      if (section < 0 || section >= adapter.getSectionCount()) {
          return NO_POSITION;
       }
-      else if (offset < 0 || offset >= mAdapter.getSectionItemCount(section)) {
-         return mAdapter.getSectionHeaderPosition(section);
+      else if (offset < 0 || offset >= adapter.getSectionItemCount(section)) {
+         return adapter.getSectionHeaderPosition(section);
       }
-      return mAdapter.getSectionItemPosition(section, offset);
+      return adapter.getSectionItemPosition(section, offset);
    }
 
    @Override
@@ -337,6 +1361,8 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
       if (mAdapter == null || state.getItemCount() == 0) {
          removeAndRecycleAllViews(recycler);
          clearState();
+         mMeasureCache.clear();
+         updateScrollMetrics(state);
          return;
       }
 
@@ -369,16 +1395,69 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
       detachAndScrapAttachedViews(recycler);
       clearState();
 
+      if (mMeasuredWidth != getWidth()) {
+         // Measured heights are valid only for the width they were measured with
+         mMeasuredWidth = getWidth();
+         mHeaderHeights.clear();
+         mHeightEstimator.clear();
+         mEstimateGeneration++;
+         mMeasureCache.clear();
+         mSectionHeightsValid = false;
+      }
+      else if (mHeightEstimator.isStale()) {
+         // Republish drifted estimates here instead of in the scroll path
+         mSectionHeightsValid = false;
+      }
+
       // Make sure mFirstViewPosition is the start of the row
       pendingAdapterPosition = findFirstRowItem(pendingAdapterPosition);
 
+      if (mPendingScrollPosition >= 0 && isFixedHeightMode()) {
+         // Row positions are known, place the target under the sticky header and clamp to the
+         // end of the content right away instead of correcting with scrolls after layout
+         final int viewportHeight = getHeight() - getPaddingTop() - getPaddingBottom();
+         final int maxScroll = Math.max(0, getSectionHeights().getTotal() - viewportHeight);
+         int scrollTop = getRowTop(pendingAdapterPosition) - pendingAdapterOffset;
+         if (mPendingScrollBelowHeader) {
+            scrollTop -= getFixedStickyHeaderHeight(pendingAdapterPosition);
+         }
+         final int y = Math.min(Math.max(scrollTop, 0), maxScroll);
+
+         pendingAdapterPosition = findRowPosition(y);
+         pendingAdapterOffset = getRowTop(pendingAdapterPosition) - y;
+         mPendingScrollPosition = NO_POSITION;
+      }
+
+      fillFromPosition(recycler, state, pendingAdapterPosition, pendingAdapterOffset);
+
+      // If layout was caused by the pending scroll, adjust top item position and move it under sticky header
+      if (mPendingScrollPosition >= 0) {
+         mPendingScrollPosition = NO_POSITION;
+
+         final int topOffset = mPendingScrollBelowHeader ? getPositionSectionHeaderHeight(pendingAdapterPosition) : 0;
+         if (topOffset != 0) {
+            scrollRowsBy(-topOffset, recycler, state);
+         }
+      }
+      updateScrollMetrics(state);
+   }
+
+   /**
+    * Lays out rows from <code>position</code> down to the bottom edge. Rows are scrolled back if
+    * the content ends above the bottom edge.
+    *
+    * @param position adapter position of the first item in the top row
+    * @param offset top row offset from the top padding, zero or negative
+    * @return The distance rows were scrolled back, zero or negative.
+    */
+   private int fillFromPosition(RecyclerView.Recycler recycler, RecyclerView.State state, int position, int offset) {
       int left = getPaddingLeft();
       int right = getWidth() - getPaddingRight();
       final int recyclerBottom = getHeight() - getPaddingBottom();
-      int totalHeight = 0;
+      final int extraBottom = getExtraLayoutSpace(state)[1];
 
-      int adapterPosition = pendingAdapterPosition;
-      int top = getPaddingTop() + pendingAdapterOffset;
+      int adapterPosition = position;
+      int top = getPaddingTop() + offset;
       while (true) {
          if (adapterPosition >= state.getItemCount()) {
             break;
@@ -387,9 +1466,9 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
          int bottom;
          final int viewType = mAdapter.getItemViewInternalType(adapterPosition);
          if (viewType == TYPE_HEADER) {
-            final View v = recycler.getViewForPosition(adapterPosition);
+            final View v = getHeaderViewForPosition(recycler, adapterPosition);
             addView(v);
-            measureChildWithMargins(v, 0, 0);
+            measureHeaderView(v);
 
             int height = getDecoratedMeasuredHeight(v);
             final int margin = height >= mHeaderOverlapMargin ? mHeaderOverlapMargin : height;
@@ -398,38 +1477,31 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
 
             bottom -= margin;
             height -= margin;
-            mLayoutRows.add(new LayoutRow(v, adapterPosition, 1, top, bottom));
+            mLayoutRows.addLast(v, adapterPosition, 1, top, bottom);
+            cacheHeaderHeight(adapterPosition, height);
             adapterPosition++;
-            mAverageHeaderHeight = height;
          }
          else {
             final FillResult result = fillBottomRow(recycler, state, adapterPosition, top);
             bottom = top + result.height;
-            mLayoutRows.add(new LayoutRow(result.adapterPosition, result.length, top, bottom));
+            mLayoutRows.addLast(null, result.adapterPosition, result.length, top, bottom);
+            onRowMeasured(result);
             adapterPosition += result.length;
          }
          top = bottom;
 
-         if (bottom >= recyclerBottom + getExtraLayoutSpace(state)) {
+         if (bottom >= recyclerBottom + extraBottom) {
             break;
          }
       }
 
-      if (getBottomRow().bottom < recyclerBottom) {
-         scrollVerticallyBy(getBottomRow().bottom - recyclerBottom, recycler, state);
+      final int layoutBottom = mLayoutRows.getBottom(mLayoutRows.size() - 1);
+      if (layoutBottom < recyclerBottom) {
+         return scrollRowsBy(layoutBottom - recyclerBottom, recycler, state);
       }
       else {
          clearViewsAndStickHeaders(recycler, state, false);
-      }
-
-      // If layout was caused by the pending scroll, adjust top item position and move it under sticky header
-      if (mPendingScrollPosition >= 0) {
-         mPendingScrollPosition = NO_POSITION;
-
-         final int topOffset = getPositionSectionHeaderHeight(pendingAdapterPosition);
-         if (topOffset != 0) {
-            scrollVerticallyBy(-topOffset, recycler, state);
-         }
+         return 0;
       }
    }
 
@@ -437,26 +1509,43 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
    public void onLayoutCompleted(RecyclerView.State state) {
       super.onLayoutCompleted(state);
       mPendingSavedState = null;
+
+      if (getScrollState() == RecyclerView.SCROLL_STATE_IDLE) {
+         stopFastBinding();
+      }
    }
 
    private int getPositionSectionHeaderHeight(int adapterPosition) {
       final int section = mAdapter.getAdapterPositionSection(adapterPosition);
-      if (section >= 0 && mAdapter.isSectionHeaderSticky(section)) {
-         final int offset = mAdapter.getItemSectionOffset(section, adapterPosition);
-         if (offset >= 0) {
-            final int headerAdapterPosition = mAdapter.getSectionHeaderPosition(section);
-            if (mFloatingHeaderView != null && headerAdapterPosition == mFloatingHeaderPosition) {
-               return Math.max(0, getDecoratedMeasuredHeight(mFloatingHeaderView) - mHeaderOverlapMargin);
+      if (section >= 0 && mAdapter.getItemSectionOffset(section, adapterPosition) >= 0) {
+         return getSectionHeaderHeight(section);
+      }
+
+      return 0;
+   }
+
+   private int getFixedStickyHeaderHeight(int adapterPosition) {
+      final int section = mAdapter.getAdapterPositionSection(adapterPosition);
+      if (mAdapter.isSectionHeaderSticky(section) && mAdapter.getItemSectionOffset(section, adapterPosition) >= 0) {
+         return getFixedHeaderRowHeight();
+      }
+      return 0;
+   }
+
+   private int getSectionHeaderHeight(int section) {
+      if (mAdapter.isSectionHeaderSticky(section)) {
+         final int headerAdapterPosition = mAdapter.getSectionHeaderPosition(section);
+         if (mFloatingHeaderView != null && headerAdapterPosition == mFloatingHeaderPosition) {
+            return Math.max(0, getDecoratedMeasuredHeight(mFloatingHeaderView) - mHeaderOverlapMargin);
+         }
+         else {
+            final int header = getHeaderRow(headerAdapterPosition);
+            if (header != NO_POSITION) {
+               return mLayoutRows.getHeight(header);
             }
             else {
-               final LayoutRow header = getHeaderRow(headerAdapterPosition);
-               if (header != null) {
-                  return header.getHeight();
-               }
-               else {
-                  // Fall back to cached header size, can be incorrect
-                  return mAverageHeaderHeight;
-               }
+               // Fall back to the last measured height of this header, or an estimate if never measured
+               return estimateHeaderRowHeight(section);
             }
          }
       }
@@ -464,15 +1553,24 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
       return 0;
    }
 
+   private void cacheHeaderHeight(int headerAdapterPosition, int height) {
+      final int section = mAdapter.getAdapterPositionSection(headerAdapterPosition);
+      final int oldHeight = mHeaderHeights.get(section, NO_POSITION);
+      mHeaderHeights.put(section, height);
+      if (oldHeight != height) {
+         mHeightEstimator.addHeader(mAdapter.getItemViewType(headerAdapterPosition), height);
+         updateSectionHeight(section);
+      }
+   }
+
    private int findFirstRowItem(int adapterPosition) {
       final int section = mAdapter.getAdapterPositionSection(adapterPosition);
-      int sectionPosition = mAdapter.getItemSectionOffset(section, adapterPosition);
-      while (sectionPosition > 0 && mSpanSizeLookup.getSpanIndex(section, sectionPosition, mSpanCount) != 0) {
-         sectionPosition--;
-         adapterPosition--;
+      final int sectionPosition = mAdapter.getItemSectionOffset(section, adapterPosition);
+      if (sectionPosition <= 0) {
+         return adapterPosition;
       }
 
-      return adapterPosition;
+      return adapterPosition - sectionPosition + getSectionRowStart(section, findSectionRow(section, sectionPosition));
    }
 
    private int getSpanWidth(int recyclerWidth, int spanIndex, int spanSize) {
@@ -497,7 +1595,7 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
       int adapterPosition = position;
       int sectionPosition = mAdapter.getItemSectionOffset(section, adapterPosition);
       int spanSize = mSpanSizeLookup.getSpanSize(section, sectionPosition);
-      int spanIndex = mSpanSizeLookup.getSpanIndex(section, sectionPosition, mSpanCount);
+      int spanIndex = mSpanSizeLookup.getCachedSpanIndex(section, sectionPosition, mSpanCount);
       int count = 0;
       int maxHeight = 0;
 
@@ -506,14 +1604,14 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
       while (spanIndex + spanSize <= mSpanCount) {
          // Create view and fill layout params
          final int spanWidth = getSpanWidth(recyclerWidth, spanIndex, spanSize);
-         final View v = recycler.getViewForPosition(adapterPosition);
+         final View v = getItemViewForPosition(recycler, adapterPosition);
          final LayoutParams params = (LayoutParams)v.getLayoutParams();
          params.mSpanIndex = spanIndex;
          params.mSpanSize = spanSize;
 
          addView(v, mHeadersStartPosition);
          mHeadersStartPosition++;
-         measureChildWithMargins(v, recyclerWidth - spanWidth, 0);
+         measureItem(v, adapterPosition, recyclerWidth - spanWidth);
          mFillViewSet[count] = v;
          count++;
 
@@ -557,7 +1655,7 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
       int adapterPosition = position;
       int sectionPosition = mAdapter.getItemSectionOffset(section, adapterPosition);
       int spanSize = mSpanSizeLookup.getSpanSize(section, sectionPosition);
-      int spanIndex = mSpanSizeLookup.getSpanIndex(section, sectionPosition, mSpanCount);
+      int spanIndex = mSpanSizeLookup.getCachedSpanIndex(section, sectionPosition, mSpanCount);
       int count = 0;
       int maxHeight = 0;
 
@@ -565,14 +1663,14 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
       while (spanIndex >= 0) {
          // Create view and fill layout params
          final int spanWidth = getSpanWidth(recyclerWidth, spanIndex, spanSize);
-         final View v = recycler.getViewForPosition(adapterPosition);
+         final View v = getItemViewForPosition(recycler, adapterPosition);
          final LayoutParams params = (LayoutParams)v.getLayoutParams();
          params.mSpanIndex = spanIndex;
          params.mSpanSize = spanSize;
 
          addView(v, 0);
          mHeadersStartPosition++;
-         measureChildWithMargins(v, recyclerWidth - spanWidth, 0);
+         measureItem(v, adapterPosition, recyclerWidth - spanWidth);
          mFillViewSet[count] = v;
          count++;
 
@@ -611,43 +1709,48 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
    }
 
    private void clearHiddenRows(RecyclerView.Recycler recycler, RecyclerView.State state, boolean top) {
-      if (mLayoutRows.size() <= 0) {
+      if (mLayoutRows.isEmpty()) {
          return;
       }
 
       final int recyclerTop = getPaddingTop();
       final int recyclerBottom = getHeight() - getPaddingBottom();
+      final int[] extraLayoutSpace = getExtraLayoutSpace(state);
+      final int extraTop = extraLayoutSpace[0];
+      final int extraBottom = extraLayoutSpace[1];
 
       if (top) {
-         LayoutRow row = getTopRow();
-         while (row.bottom < recyclerTop - getExtraLayoutSpace(state) || row.top > recyclerBottom) {
-            if (row.header) {
+         while (!mLayoutRows.isEmpty() && (mLayoutRows.getBottom(0) < recyclerTop - extraTop || mLayoutRows.getTop(0) > recyclerBottom + extraBottom)) {
+            if (mLayoutRows.isHeader(0)) {
+               resetHeaderTranslation(mLayoutRows.getHeaderView(0));
                removeAndRecycleViewAt(mHeadersStartPosition + (mFloatingHeaderView != null ? 1 : 0), recycler);
             }
             else {
-               for (int i = 0; i < row.length; ++i) {
+               for (int i = 0, n = mLayoutRows.getLength(0); i < n; ++i) {
                   removeAndRecycleViewAt(0, recycler);
                   mHeadersStartPosition--;
                }
+               forgetMeasuredItems(mLayoutRows.getAdapterPosition(0), mLayoutRows.getLength(0));
             }
-            mLayoutRows.remove(0);
-            row = getTopRow();
+            mLayoutRows.removeFirst();
          }
       }
       else {
-         LayoutRow row = getBottomRow();
-         while (row.bottom < recyclerTop || row.top > recyclerBottom + getExtraLayoutSpace(state)) {
-            if (row.header) {
+         int row = mLayoutRows.size() - 1;
+         while (row >= 0 && (mLayoutRows.getBottom(row) < recyclerTop - extraTop || mLayoutRows.getTop(row) > recyclerBottom + extraBottom)) {
+            if (mLayoutRows.isHeader(row)) {
+               resetHeaderTranslation(mLayoutRows.getHeaderView(row));
                removeAndRecycleViewAt(getChildCount() - 1, recycler);
             }
             else {
-               for (int i = 0; i < row.length; ++i) {
+               for (int i = 0, n = mLayoutRows.getLength(row); i < n; ++i) {
                   removeAndRecycleViewAt(mHeadersStartPosition - 1, recycler);
                   mHeadersStartPosition--;
                }
+               forgetMeasuredItems(mLayoutRows.getAdapterPosition(row), mLayoutRows.getLength(row));
             }
-            mLayoutRows.remove(mLayoutRows.size() - 1);
-            row = getBottomRow();
+            mLayoutRows.removeLast();
+            row = mLayoutRows.size() - 1;
          }
       }
    }
@@ -660,20 +1763,20 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
       updateTopPosition();
    }
 
-   private LayoutRow getBottomRow() {
-      return mLayoutRows.get(mLayoutRows.size() - 1);
-   }
-
-   private LayoutRow getTopRow() {
-      return mLayoutRows.get(0);
-   }
-
    private void offsetRowsVertical(int offset) {
-      for (LayoutRow row : mLayoutRows) {
-         row.top += offset;
-         row.bottom += offset;
+      mLayoutRows.offset(offset);
+      if (mStickyHeaderTranslationEnabled && mFloatingHeaderView != null) {
+         // Floating header keeps its layout position, it is only moved by translation
+         for (int i = 0, n = getChildCount(); i < n; ++i) {
+            final View child = getChildAt(i);
+            if (child != mFloatingHeaderView) {
+               child.offsetTopAndBottom(offset);
+            }
+         }
+      }
+      else {
+         offsetChildrenVertical(offset);
       }
-      offsetChildrenVertical(offset);
    }
 
    private void addRow(RecyclerView.Recycler recycler, RecyclerView.State state, boolean isTop, int adapterPosition, int top) {
@@ -687,69 +1790,97 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
 
       final int viewType = mAdapter.getItemViewInternalType(adapterPosition);
       if (viewType == TYPE_HEADER) {
-         final View v = recycler.getViewForPosition(adapterPosition);
+         final View v = getHeaderViewForPosition(recycler, adapterPosition);
          if (isTop) {
             addView(v, mHeadersStartPosition);
          }
          else {
             addView(v);
          }
-         measureChildWithMargins(v, 0, 0);
+         measureHeaderView(v);
          final int height = getDecoratedMeasuredHeight(v);
          final int margin = height >= mHeaderOverlapMargin ? mHeaderOverlapMargin : height;
          if (isTop) {
             layoutDecorated(v, left, top - height + margin, right, top + margin);
-            mLayoutRows.add(0, new LayoutRow(v, adapterPosition, 1, top - height + margin, top));
+            mLayoutRows.addFirst(v, adapterPosition, 1, top - height + margin, top);
          }
          else {
             layoutDecorated(v, left, top, right, top + height);
-            mLayoutRows.add(new LayoutRow(v, adapterPosition, 1, top, top + height - margin));
+            mLayoutRows.addLast(v, adapterPosition, 1, top, top + height - margin);
          }
-         mAverageHeaderHeight = height - margin;
+         cacheHeaderHeight(adapterPosition, height - margin);
       }
       else {
          if (isTop) {
             final FillResult result = fillTopRow(recycler, state, adapterPosition, top);
-            mLayoutRows.add(0, new LayoutRow(result.adapterPosition, result.length, top - result.height, top));
+            mLayoutRows.addFirst(null, result.adapterPosition, result.length, top - result.height, top);
+            onRowMeasured(result);
          }
          else {
             final FillResult result = fillBottomRow(recycler, state, adapterPosition, top);
-            mLayoutRows.add(new LayoutRow(result.adapterPosition, result.length, top, top + result.height));
+            mLayoutRows.addLast(null, result.adapterPosition, result.length, top, top + result.height);
+            onRowMeasured(result);
          }
       }
    }
 
    private void addOffScreenRows(RecyclerView.Recycler recycler, RecyclerView.State state, int recyclerTop, int recyclerBottom, boolean bottom) {
+      final int[] extraLayoutSpace = getExtraLayoutSpace(state);
       if (bottom) {
          // Bottom
          while (true) {
-            final LayoutRow bottomRow = getBottomRow();
-            final int adapterPosition = bottomRow.adapterPosition + bottomRow.length;
-            if (bottomRow.bottom >= recyclerBottom + getExtraLayoutSpace(state) || adapterPosition >= state.getItemCount()) {
+            final int bottomRow = mLayoutRows.size() - 1;
+            final int adapterPosition = mLayoutRows.getAdapterPosition(bottomRow) + mLayoutRows.getLength(bottomRow);
+            if (mLayoutRows.getBottom(bottomRow) >= recyclerBottom + extraLayoutSpace[1] || adapterPosition >= state.getItemCount()) {
                break;
             }
-            addRow(recycler, state, false, adapterPosition, bottomRow.bottom);
+            addRow(recycler, state, false, adapterPosition, mLayoutRows.getBottom(bottomRow));
          }
       }
       else {
          // Top
          while (true) {
-            final LayoutRow topRow = getTopRow();
-            final int adapterPosition = topRow.adapterPosition - 1;
-            if (topRow.top < recyclerTop - getExtraLayoutSpace(state) || adapterPosition < 0) {
+            final int adapterPosition = mLayoutRows.getAdapterPosition(0) - 1;
+            if (mLayoutRows.getTop(0) < recyclerTop - extraLayoutSpace[0] || adapterPosition < 0) {
                break;
             }
-            addRow(recycler, state, true, adapterPosition, topRow.top);
+            addRow(recycler, state, true, adapterPosition, mLayoutRows.getTop(0));
          }
       }
    }
 
    @Override
    public int scrollVerticallyBy(int dy, RecyclerView.Recycler recycler, RecyclerView.State state) {
+      // Only user and fling scrolls count, programmatic scrolls are not fast scrolling
+      final int scrollState = getScrollState();
+      if (scrollState == RecyclerView.SCROLL_STATE_DRAGGING || scrollState == RecyclerView.SCROLL_STATE_SETTLING) {
+         trackScrollVelocity(dy);
+         updateFastBinding();
+      }
+      else if (mFastBinding) {
+         stopFastBinding();
+      }
+
+      return scrollRowsBy(dy, recycler, state);
+   }
+
+   /**
+    * Scrolls rows by <code>dy</code>. Used directly for layout corrections, which must not
+    * affect scroll velocity.
+    */
+   private int scrollRowsBy(int dy, RecyclerView.Recycler recycler, RecyclerView.State state) {
       if (getChildCount() == 0) {
          return 0;
       }
 
+      if (shouldSkipAhead(dy)) {
+         final int skipped = skipAhead(dy, recycler, state);
+         if (skipped != 0) {
+            updateScrollMetrics(state);
+            return skipped;
+         }
+      }
+
       int scrolled = 0;
       int left = getPaddingLeft();
       int right = getWidth() - getPaddingRight();
@@ -759,41 +1890,40 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
       // If we have simple header stick, offset it back
       final int firstHeader = getFirstVisibleSectionHeader();
       if (firstHeader != NO_POSITION) {
-         mLayoutRows.get(firstHeader).headerView.offsetTopAndBottom(-mStickOffset);
+         mLayoutRows.getHeaderView(firstHeader).offsetTopAndBottom(-mStickOffset);
       }
 
       if (dy >= 0) {
          // Up
          while (scrolled < dy) {
-            final LayoutRow bottomRow = getBottomRow();
-            final int scrollChunk = -Math.min(Math.max(bottomRow.bottom - recyclerBottom, 0), dy - scrolled);
+            final int bottomRow = mLayoutRows.size() - 1;
+            final int scrollChunk = -Math.min(Math.max(mLayoutRows.getBottom(bottomRow) - recyclerBottom, 0), dy - scrolled);
 
             offsetRowsVertical(scrollChunk);
             scrolled -= scrollChunk;
 
-            final int adapterPosition = bottomRow.adapterPosition + bottomRow.length;
+            final int adapterPosition = mLayoutRows.getAdapterPosition(bottomRow) + mLayoutRows.getLength(bottomRow);
             if (scrolled >= dy || adapterPosition >= state.getItemCount()) {
                break;
             }
 
-            addRow(recycler, state, false, adapterPosition, bottomRow.bottom);
+            addRow(recycler, state, false, adapterPosition, mLayoutRows.getBottom(bottomRow));
          }
       }
       else {
          // Down
          while (scrolled > dy) {
-            final LayoutRow topRow = getTopRow();
-            final int scrollChunk = Math.min(Math.max(-topRow.top + recyclerTop, 0), scrolled - dy);
+            final int scrollChunk = Math.min(Math.max(-mLayoutRows.getTop(0) + recyclerTop, 0), scrolled - dy);
 
             offsetRowsVertical(scrollChunk);
             scrolled -= scrollChunk;
 
-            final int adapterPosition = topRow.adapterPosition - 1;
+            final int adapterPosition = mLayoutRows.getAdapterPosition(0) - 1;
             if (scrolled <= dy || adapterPosition >= state.getItemCount() || adapterPosition < 0) {
                break;
             }
 
-            addRow(recycler, state, true, adapterPosition, topRow.top);
+            addRow(recycler, state, true, adapterPosition, mLayoutRows.getTop(0));
          }
       }
 
@@ -803,9 +1933,176 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
       }
 
       clearViewsAndStickHeaders(recycler, state, dy >= 0);
+      updateScrollMetrics(state);
       return  scrolled;
    }
 
+   private boolean shouldSkipAhead(int dy) {
+      if (mLayoutRows.isEmpty() || mAdapter == null) {
+         return false;
+      }
+
+      // Skip only if at least a whole screen of rows would be created and recycled right away
+      final int recyclerTop = getPaddingTop();
+      final int recyclerBottom = getHeight() - getPaddingBottom();
+      final int viewportHeight = recyclerBottom - recyclerTop;
+      if (dy > 0) {
+         final int bottomRow = mLayoutRows.size() - 1;
+         return mLayoutRows.getAdapterPosition(bottomRow) + mLayoutRows.getLength(bottomRow) < getItemCount()
+               && dy - Math.max(0, mLayoutRows.getBottom(bottomRow) - recyclerBottom) > viewportHeight;
+      }
+      else {
+         return mLayoutRows.getAdapterPosition(0) > 0
+               && -dy - Math.max(0, recyclerTop - mLayoutRows.getTop(0)) > viewportHeight;
+      }
+   }
+
+   /**
+    * Moves the layout by <code>dy</code> using section heights, without creating rows in between,
+    * and lays out the target rows from scratch.
+    *
+    * @return The distance scrolled, 0 if the layout did not move.
+    */
+   private int skipAhead(int dy, RecyclerView.Recycler recycler, RecyclerView.State state) {
+      final int viewportHeight = getHeight() - getPaddingTop() - getPaddingBottom();
+      final int scrollOffset = getLayoutScrollOffset();
+      final int y;
+      if (dy > 0) {
+         // Estimated total can be short, never move backwards because of it
+         final int maxScroll = Math.max(getSectionHeights().getTotal() - viewportHeight, scrollOffset);
+         y = Math.min(scrollOffset + dy, maxScroll);
+      }
+      else {
+         y = Math.max(scrollOffset + dy, 0);
+      }
+
+      if (y == scrollOffset) {
+         return 0;
+      }
+
+      final int position = findRowPosition(y);
+      removeAndRecycleAllViews(recycler);
+      clearRows();
+      final int corrected = fillFromPosition(recycler, state, position, getRowTop(position) - y);
+
+      // Content moved by the skipped distance minus the correction at the end of the list
+      final int scrolled = y - scrollOffset + corrected;
+      return dy > 0 ? Math.max(scrolled, 0) : Math.min(scrolled, 0);
+   }
+
+   @Override
+   public void collectAdjacentPrefetchPositions(int dx, int dy, RecyclerView.State state, LayoutPrefetchRegistry layoutPrefetchRegistry) {
+      if (dy == 0 || mAdapter == null || mLayoutRows.isEmpty() || state.getItemCount() == 0) {
+         return;
+      }
+
+      final int itemCount = state.getItemCount();
+      if (dy > 0) {
+         final int bottomRow = mLayoutRows.size() - 1;
+         final int rowHeight = Math.max(1, mLayoutRows.getHeight(bottomRow));
+         int adapterPosition = mLayoutRows.getAdapterPosition(bottomRow) + mLayoutRows.getLength(bottomRow);
+         int distance = Math.max(0, mLayoutRows.getBottom(bottomRow) - (getHeight() - getPaddingBottom()));
+         for (int row = 0; row < mPrefetchRowCount && adapterPosition < itemCount; ++row) {
+            adapterPosition = collectPrefetchRow(layoutPrefetchRegistry, adapterPosition, distance, true);
+            distance += rowHeight;
+         }
+
+         // Next row starts a new section, its header will be needed right after
+         if (mPrefetchRowCount > 0 && adapterPosition < itemCount
+               && mAdapter.getItemViewInternalType(adapterPosition) == TYPE_HEADER) {
+            layoutPrefetchRegistry.addPosition(adapterPosition, distance);
+         }
+      }
+      else {
+         final int rowHeight = Math.max(1, mLayoutRows.getHeight(0));
+         int adapterPosition = mLayoutRows.getAdapterPosition(0) - 1;
+         int distance = Math.max(0, getPaddingTop() - mLayoutRows.getTop(0));
+         for (int row = 0; row < mPrefetchRowCount && adapterPosition >= 0; ++row) {
+            adapterPosition = collectPrefetchRow(layoutPrefetchRegistry, adapterPosition, distance, false);
+            distance += rowHeight;
+         }
+
+         // Rows above belong to the previous section, its header will be needed as floating header
+         if (mPrefetchRowCount > 0 && adapterPosition >= 0
+               && mAdapter.getItemViewInternalType(adapterPosition) != TYPE_HEADER) {
+            final int section = mAdapter.getAdapterPositionSection(adapterPosition);
+            if (mAdapter.isSectionHeaderSticky(section)) {
+               layoutPrefetchRegistry.addPosition(mAdapter.getSectionHeaderPosition(section), distance);
+            }
+         }
+      }
+   }
+
+   @Override
+   public void collectInitialPrefetchPositions(int adapterItemCount, LayoutPrefetchRegistry layoutPrefetchRegistry) {
+      if (mAdapter == null || adapterItemCount == 0) {
+         return;
+      }
+
+      int adapterPosition;
+      if (mPendingScrollPosition >= 0) {
+         adapterPosition = mPendingScrollPosition;
+      }
+      else if (mPendingSavedState != null && mPendingSavedState.hasValidAnchor()) {
+         adapterPosition = getAdapterPositionChecked(mPendingSavedState.mAnchorSection, mPendingSavedState.mAnchorItem);
+      }
+      else {
+         adapterPosition = getAdapterPositionChecked(mAnchor.section, mAnchor.item);
+      }
+
+      if (adapterPosition < 0 || adapterPosition >= adapterItemCount) {
+         adapterPosition = 0;
+      }
+
+      for (int i = 0; i < mInitialPrefetchItemCount && adapterPosition < adapterItemCount; ++i) {
+         layoutPrefetchRegistry.addPosition(adapterPosition, 0);
+         adapterPosition++;
+      }
+   }
+
+   private int collectPrefetchRow(LayoutPrefetchRegistry layoutPrefetchRegistry, int position, int distance, boolean forward) {
+      if (mAdapter.getItemViewInternalType(position) == TYPE_HEADER) {
+         layoutPrefetchRegistry.addPosition(position, distance);
+         return forward ? position + 1 : position - 1;
+      }
+
+      // Same span walk as fillBottomRow and fillTopRow, without creating views
+      final int section = mAdapter.getAdapterPositionSection(position);
+      final int sectionItemCount = mAdapter.getSectionItemCount(section);
+      int adapterPosition = position;
+      int sectionPosition = mAdapter.getItemSectionOffset(section, adapterPosition);
+      int spanSize = mSpanSizeLookup.getSpanSize(section, sectionPosition);
+      int spanIndex = mSpanSizeLookup.getCachedSpanIndex(section, sectionPosition, mSpanCount);
+      if (forward) {
+         while (spanIndex + spanSize <= mSpanCount) {
+            layoutPrefetchRegistry.addPosition(adapterPosition, distance);
+            adapterPosition++;
+            sectionPosition++;
+            if (sectionPosition >= sectionItemCount) {
+               break;
+            }
+
+            spanIndex += spanSize;
+            spanSize = mSpanSizeLookup.getSpanSize(section, sectionPosition);
+         }
+      }
+      else {
+         while (spanIndex >= 0) {
+            layoutPrefetchRegistry.addPosition(adapterPosition, distance);
+            adapterPosition--;
+            sectionPosition--;
+            if (sectionPosition < 0) {
+               break;
+            }
+
+            spanSize = mSpanSizeLookup.getSpanSize(section, sectionPosition);
+            spanIndex -= spanSize;
+         }
+      }
+
+      return adapterPosition;
+   }
+
    /**
     * Returns first visible item excluding headers.
     *
@@ -852,26 +2149,51 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
          return NO_POSITION;
       }
 
-      int viewFrom = type == TYPE_ITEM ? 0 : mHeadersStartPosition;
-      int viewTo = type == TYPE_ITEM ? mHeadersStartPosition : getChildCount();
       final int recyclerTop = getPaddingTop();
-      for (int i = viewFrom; i < viewTo; ++i) {
-         final View v = getChildAt(i);
-         final int adapterPosition = getPosition(v);
-         final int headerHeight = getPositionSectionHeaderHeight(adapterPosition);
-         final int top = getDecoratedTop(v);
-         final int bottom = getDecoratedBottom(v);
-
-         if (visibleTop) {
-            if (top >= recyclerTop + headerHeight) {
-               return adapterPosition;
+      if (type == TYPE_HEADER) {
+         // Only a few headers are attached and they are never covered by the sticky header
+         for (int i = mHeadersStartPosition, n = getChildCount(); i < n; ++i) {
+            final View v = getChildAt(i);
+            if ((visibleTop ? getHeaderTop(v) : getHeaderBottom(v)) >= recyclerTop) {
+               return getPosition(v);
             }
          }
-         else {
-            if (bottom >= recyclerTop + headerHeight) {
+         return NO_POSITION;
+      }
+
+      final int firstRow = mLayoutRows.findFirstRowBelow(recyclerTop - 1);
+      if (firstRow == NO_POSITION) {
+         return NO_POSITION;
+      }
+
+      // Only items of the first visible section can be covered by its sticky header. Rows of the
+      // following sections start below their own headers, so they are always visible enough.
+      final int nextHeader = mLayoutRows.findHeaderAfter(firstRow);
+      final int sectionEnd = nextHeader != NO_POSITION ? nextHeader : mLayoutRows.size();
+      final int section = mAdapter.getAdapterPositionSection(mLayoutRows.getAdapterPosition(firstRow));
+      final int edge = recyclerTop + getSectionHeaderHeight(section);
+
+      int row = mLayoutRows.findFirstRow(firstRow, sectionEnd, edge, visibleTop);
+      if (row < sectionEnd && !visibleTop) {
+         // Row bottom is the bottom of its tallest item, check items one by one
+         final int adapterEnd = mLayoutRows.getAdapterPosition(row) + mLayoutRows.getLength(row);
+         for (int i = findItemChildIndex(mLayoutRows.getAdapterPosition(row)); i < mHeadersStartPosition; ++i) {
+            final View v = getChildAt(i);
+            final int adapterPosition = getPosition(v);
+            if (adapterPosition >= adapterEnd) {
+               break;
+            }
+            if (getDecoratedBottom(v) >= edge) {
                return adapterPosition;
             }
          }
+         row++;
+      }
+
+      for (int n = mLayoutRows.size(); row < n; ++row) {
+         if (!mLayoutRows.isHeader(row)) {
+            return mLayoutRows.getAdapterPosition(row);
+         }
       }
 
       return NO_POSITION;
@@ -885,76 +2207,117 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
          return NO_POSITION;
       }
 
-      int viewFrom = type == TYPE_ITEM ? mHeadersStartPosition - 1 : getChildCount() - 1;
-      int viewTo = type == TYPE_ITEM ? 0 : mHeadersStartPosition;
       final int recyclerBottom = getHeight() - getPaddingBottom();
-      for (int i = viewFrom; i >= viewTo; --i) {
-         final View v = getChildAt(i);
-         final int top = getDecoratedTop(v);
+      if (type == TYPE_HEADER) {
+         for (int i = getChildCount() - 1; i >= mHeadersStartPosition; --i) {
+            final View v = getChildAt(i);
+            if (getHeaderTop(v) < recyclerBottom) {
+               return getPosition(v);
+            }
+         }
+         return NO_POSITION;
+      }
 
-         if (top < recyclerBottom) {
-            return getPosition(v);
+      // Items of a row share the top edge, the last item of the row is the last visible one
+      for (int row = mLayoutRows.findFirstRow(0, mLayoutRows.size(), recyclerBottom, true) - 1; row >= 0; --row) {
+         if (!mLayoutRows.isHeader(row)) {
+            return mLayoutRows.getAdapterPosition(row) + mLayoutRows.getLength(row) - 1;
          }
       }
 
       return NO_POSITION;
    }
 
-   private LayoutRow getFirstVisibleRow() {
-      final int recyclerTop = getPaddingTop();
-      for (LayoutRow row : mLayoutRows) {
-         if (row.bottom > recyclerTop) {
-            return row;
-         }
-      }
-      return null;
+   // Header edges as drawn, translated headers report the same edges in both sticky modes
+   private int getHeaderTop(View header) {
+      return getDecoratedTop(header) + getHeaderTranslation(header);
    }
 
-   private int getFirstVisibleSectionHeader() {
-      final int recyclerTop = getPaddingTop();
+   private int getHeaderBottom(View header) {
+      return getDecoratedBottom(header) + getHeaderTranslation(header);
+   }
 
-      int header = NO_POSITION;
-      for (int i = 0, n = mLayoutRows.size(); i < n; ++i) {
-         final LayoutRow row = mLayoutRows.get(i);
-         if (row.header) {
-            header = i;
+   private int getHeaderTranslation(View header) {
+      return header == mTranslatedHeaderView ? Math.round(header.getTranslationY()) : 0;
+   }
+
+   private int findItemChildIndex(int adapterPosition) {
+      // Item views are attached in adapter position order
+      int low = 0;
+      int high = mHeadersStartPosition;
+      while (low < high) {
+         final int mid = (low + high) >>> 1;
+         if (getPosition(getChildAt(mid)) < adapterPosition) {
+            low = mid + 1;
          }
-         if (row.bottom > recyclerTop) {
-            return header;
+         else {
+            high = mid;
          }
       }
-      return NO_POSITION;
+      return low;
    }
 
-   private LayoutRow getNextVisibleSectionHeader(int headerFrom) {
-      for (int i = headerFrom + 1, n = mLayoutRows.size(); i < n; ++i) {
-         final LayoutRow row = mLayoutRows.get(i);
-         if (row.header) {
-            return row;
-         }
+   private int getFirstVisibleRow() {
+      return mLayoutRows.findFirstRowBelow(getPaddingTop());
+   }
+
+   private int getFirstVisibleSectionHeader() {
+      final int firstVisibleRow = getFirstVisibleRow();
+      if (firstVisibleRow == NO_POSITION) {
+         return NO_POSITION;
       }
-      return null;
+      return mLayoutRows.findHeaderAtOrBefore(firstVisibleRow);
    }
 
-   private LayoutRow getHeaderRow(int adapterPosition) {
-      for (int i = 0, n = mLayoutRows.size(); i < n; ++i) {
-         final LayoutRow row = mLayoutRows.get(i);
-         if (row.header && row.adapterPosition == adapterPosition) {
-            return row;
-         }
+   private int getNextVisibleSectionHeader(int headerFrom) {
+      return mLayoutRows.findHeaderAfter(headerFrom);
+   }
+
+   private int getHeaderRow(int adapterPosition) {
+      return mLayoutRows.findHeaderRow(adapterPosition);
+   }
+
+   private void removeFloatingHeader(RecyclerView.Recycler recycler) {
+      if (mFloatingHeaderView == null) {
+         return;
+      }
+
+      final View view = mFloatingHeaderView;
+      final int position = getPosition(view);
+      mFloatingHeaderView = null;
+      mFloatingHeaderPosition = NO_POSITION;
+      resetHeaderTranslation(view);
+
+      if (mHeaderViewCache.getCapacity() > 0 && position < mAdapter.getItemCount()) {
+         // Keep the view bound, it is likely to float again soon
+         removeView(view);
+         mHeaderViewCache.put(position, view, recycler);
+      }
+      else {
+         removeAndRecycleView(view, recycler);
+      }
+   }
+
+   private View getHeaderViewForPosition(RecyclerView.Recycler recycler, int headerPosition) {
+      final View view = mHeaderViewCache.remove(headerPosition);
+      return view != null ? view : recycler.getViewForPosition(headerPosition);
+   }
+
+   private void setHeaderTranslation(View view, int translation) {
+      if (mTranslatedHeaderView != null && mTranslatedHeaderView != view) {
+         mTranslatedHeaderView.setTranslationY(0);
+      }
+
+      mTranslatedHeaderView = view;
+      if (view != null && view.getTranslationY() != translation) {
+         view.setTranslationY(translation);
       }
-      return null;
    }
 
-   private void removeFloatingHeader(RecyclerView.Recycler recycler) {
-      if (mFloatingHeaderView == null) {
-         return;
+   private void resetHeaderTranslation(View view) {
+      if (view == mTranslatedHeaderView) {
+         setHeaderTranslation(null, 0);
       }
-
-      final View view = mFloatingHeaderView;
-      mFloatingHeaderView = null;
-      mFloatingHeaderPosition = NO_POSITION;
-      removeAndRecycleView(view, recycler);
    }
 
    private void onHeaderChanged(int section, View view, HeaderState state, int pushOffset) {
@@ -999,42 +2362,55 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
          // Top row is header, floating header is not visible, remove
          removeFloatingHeader(recycler);
 
-         final LayoutRow firstHeaderRow = mLayoutRows.get(firstHeader);
-         final int section = mAdapter.getAdapterPositionSection(firstHeaderRow.adapterPosition);
+         final View firstHeaderView = mLayoutRows.getHeaderView(firstHeader);
+         final int section = mAdapter.getAdapterPositionSection(mLayoutRows.getAdapterPosition(firstHeader));
          if (mAdapter.isSectionHeaderSticky(section)) {
-            final LayoutRow nextHeaderRow = getNextVisibleSectionHeader(firstHeader);
+            final int nextHeaderRow = getNextVisibleSectionHeader(firstHeader);
             int offset = 0;
-            if (nextHeaderRow != null) {
-               final int height = firstHeaderRow.getHeight();
-               offset = Math.min(Math.max(top - nextHeaderRow.top, -height) + height, height);
+            if (nextHeaderRow != NO_POSITION) {
+               final int height = mLayoutRows.getHeight(firstHeader);
+               offset = Math.min(Math.max(top - mLayoutRows.getTop(nextHeaderRow), -height) + height, height);
             }
 
-            mStickOffset = top - firstHeaderRow.top - offset;
-            firstHeaderRow.headerView.offsetTopAndBottom(mStickOffset);
+            final int stickOffset = top - mLayoutRows.getTop(firstHeader) - offset;
+            if (mStickyHeaderTranslationEnabled) {
+               setHeaderTranslation(firstHeaderView, stickOffset);
+               mStickOffset = 0;
+            }
+            else {
+               mStickOffset = stickOffset;
+               firstHeaderView.offsetTopAndBottom(mStickOffset);
+            }
 
-            onHeaderChanged(section, firstHeaderRow.headerView, offset == 0 ? HeaderState.STICKY : HeaderState.PUSHED, offset);
+            onHeaderChanged(section, firstHeaderView, offset == 0 ? HeaderState.STICKY : HeaderState.PUSHED, offset);
          }
          else {
             onHeaderUnstick();
+            setHeaderTranslation(null, 0);
             mStickOffset = 0;
          }
       }
       else {
          // We don't have first visible sector header in layout, create floating
-         final LayoutRow firstVisibleRow = getFirstVisibleRow();
-         if (firstVisibleRow != null) {
-            final int section = mAdapter.getAdapterPositionSection(firstVisibleRow.adapterPosition);
+         final int firstVisibleRow = getFirstVisibleRow();
+         if (firstVisibleRow != NO_POSITION) {
+            final int section = mAdapter.getAdapterPositionSection(mLayoutRows.getAdapterPosition(firstVisibleRow));
             if (mAdapter.isSectionHeaderSticky(section)) {
                final int headerPosition = mAdapter.getSectionHeaderPosition(section);
                if (mFloatingHeaderView == null || mFloatingHeaderPosition != headerPosition) {
                   removeFloatingHeader(recycler);
 
                   // Create floating header
-                  final View v = recycler.getViewForPosition(headerPosition);
+                  final View v = getHeaderViewForPosition(recycler, headerPosition);
                   addView(v, mHeadersStartPosition);
-                  measureChildWithMargins(v, 0, 0);
+                  measureHeaderView(v);
                   mFloatingHeaderView = v;
                   mFloatingHeaderPosition = headerPosition;
+                  cacheHeaderHeight(headerPosition, Math.max(0, getDecoratedMeasuredHeight(v) - mHeaderOverlapMargin));
+
+                  if (mStickyHeaderTranslationEnabled) {
+                     layoutDecorated(v, left, top, right, top + getDecoratedMeasuredHeight(v));
+                  }
                }
 
                // Push floating header up, if needed
@@ -1046,15 +2422,26 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
                   offset = Math.max(top - getDecoratedTop(nextHeader), -contentHeight) + contentHeight;
                }
 
-               layoutDecorated(mFloatingHeaderView, left, top - offset, right, top + height - offset);
+               if (mStickyHeaderTranslationEnabled) {
+                  // Floating header is not moved with the rows, only the push offset changes
+                  if (getDecoratedTop(mFloatingHeaderView) != top) {
+                     layoutDecorated(mFloatingHeaderView, left, top, right, top + height);
+                  }
+                  setHeaderTranslation(mFloatingHeaderView, -offset);
+               }
+               else {
+                  layoutDecorated(mFloatingHeaderView, left, top - offset, right, top + height - offset);
+               }
                onHeaderChanged(section, mFloatingHeaderView, offset == 0 ? HeaderState.STICKY : HeaderState.PUSHED, offset);
             }
             else {
                onHeaderUnstick();
+               setHeaderTranslation(null, 0);
             }
          }
          else {
             onHeaderUnstick();
+            setHeaderTranslation(null, 0);
          }
       }
    }
@@ -1064,11 +2451,12 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
          mAnchor.reset();
       }
 
-      final LayoutRow firstVisibleRow = getFirstVisibleRow();
-      if (firstVisibleRow != null) {
-         mAnchor.section = mAdapter.getAdapterPositionSection(firstVisibleRow.adapterPosition);
-         mAnchor.item = mAdapter.getItemSectionOffset(mAnchor.section, firstVisibleRow.adapterPosition);
-         mAnchor.offset = Math.min(firstVisibleRow.top - getPaddingTop(), 0);
+      final int firstVisibleRow = getFirstVisibleRow();
+      if (firstVisibleRow != NO_POSITION) {
+         final int adapterPosition = mLayoutRows.getAdapterPosition(firstVisibleRow);
+         mAnchor.section = mAdapter.getAdapterPositionSection(adapterPosition);
+         mAnchor.item = mAdapter.getItemSectionOffset(mAnchor.section, adapterPosition);
+         mAnchor.offset = Math.min(mLayoutRows.getTop(firstVisibleRow) - getPaddingTop(), 0);
       }
    }
 
@@ -1081,21 +2469,21 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
    }
 
    private void clearState() {
+      clearRows();
+      onHeaderUnstick();
+   }
+
+   /**
+    * Resets row storage but keeps the sticky header state, so the next {@link #stickTopHeader}
+    * only reports a change if another section sticks.
+    */
+   private void clearRows() {
       mHeadersStartPosition = 0;
       mStickOffset = 0;
+      setHeaderTranslation(null, 0);
       mFloatingHeaderView = null;
       mFloatingHeaderPosition = -1;
-      mAverageHeaderHeight = 0;
       mLayoutRows.clear();
-
-      if (mStickyHeaderSection != NO_POSITION) {
-         if (mHeaderStateListener != null) {
-            mHeaderStateListener.onHeaderStateChanged(mStickyHeaderSection, mStickyHeaderView, HeaderState.NORMAL, 0);
-         }
-         mStickyHeaderSection = NO_POSITION;
-         mStickyHeaderView = null;
-         mStickyHeadeState = HeaderState.NORMAL;
-      }
    }
 
    @Override
@@ -1104,13 +2492,7 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
          return 0;
       }
 
-      final View startChild = getChildAt(0);
-      final View endChild = getChildAt(mHeadersStartPosition - 1);
-      if (startChild == null || endChild == null) {
-         return 0;
-      }
-
-      return Math.abs(getPosition(startChild) - getPosition(endChild)) + 1;
+      return getHeight() - getPaddingTop() - getPaddingBottom();
    }
 
    @Override
@@ -1119,22 +2501,7 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
          return 0;
       }
 
-      final View startChild = getChildAt(0);
-      final View endChild = getChildAt(mHeadersStartPosition - 1);
-      if (startChild == null || endChild == null) {
-         return 0;
-      }
-
-      final int recyclerTop = getPaddingTop();
-      final LayoutRow topRow = getTopRow();
-      final int scrollChunk = Math.max(-topRow.top + recyclerTop, 0);
-      if (scrollChunk == 0) {
-         return 0;
-      }
-
-      final int minPosition = Math.min(getPosition(startChild), getPosition(endChild));
-      final int maxPosition = Math.max(getPosition(startChild), getPosition(endChild));
-      return Math.max(0, minPosition);
+      return mScrollOffset;
    }
 
    @Override
@@ -1143,13 +2510,49 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
          return 0;
       }
 
-      final View startChild = getChildAt(0);
-      final View endChild = getChildAt(mHeadersStartPosition - 1);
-      if (startChild == null || endChild == null) {
-         return 0;
+      return mScrollRange;
+   }
+
+   /**
+    * Updates the values reported by computeVerticalScrollOffset/Range. Called at the end of
+    * layout and scroll passes only, positions of laid out rows are stale between an adapter
+    * notification and the next layout, and rebuilding section heights is too expensive for
+    * every scrollbar draw.
+    */
+   private void updateScrollMetrics(RecyclerView.State state) {
+      if (mLayoutRows.isEmpty() || state.getItemCount() == 0) {
+         mScrollOffset = 0;
+         mScrollRange = 0;
+         return;
+      }
+
+      mScrollOffset = getLayoutScrollOffset();
+
+      // Rows are laid out to the end of the content, use measured rows instead of estimates
+      final int lastRow = mLayoutRows.size() - 1;
+      if (mLayoutRows.getAdapterPosition(lastRow) + mLayoutRows.getLength(lastRow) >= state.getItemCount()) {
+         mScrollRange = mScrollOffset + mLayoutRows.getBottom(lastRow) - getPaddingTop();
+      }
+      else {
+         final int extent = getHeight() - getPaddingTop() - getPaddingBottom();
+         mScrollRange = Math.max(getSectionHeights().getTotal(), mScrollOffset + extent);
       }
+   }
+
+   /**
+    * Returns the content offset of the recycler top edge. Pixel exact in fixed height mode,
+    * otherwise estimated for rows above the layout.
+    */
+   private int getLayoutScrollOffset() {
+      return Math.max(0, getRowTop(mLayoutRows.getAdapterPosition(0)) + getPaddingTop() - mLayoutRows.getTop(0));
+   }
 
-      return state.getItemCount();
+   private static class MeasureCacheEntry {
+      private int widthUsed;
+      private int viewType;
+      private int measuredWidth;
+      private int measuredHeight;
+      private final Rect decorInsets = new Rect();
    }
 
    public static class LayoutParams extends RecyclerView.LayoutParams {
@@ -1193,6 +2596,11 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
          return 1;
       }
 
+      @Override
+      public int getSectionSpanSize(int section) {
+         return 1;
+      }
+
       @Override
       public int getSpanIndex(int section, int position, int spanCount) {
          return position % spanCount;
@@ -1207,6 +2615,9 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
     * @see StickyHeaderGridLayoutManager#setSpanSizeLookup(StickyHeaderGridLayoutManager.SpanSizeLookup)
     */
    public static abstract class SpanSizeLookup {
+      private final SparseArray<SparseIntArray> mSpanIndexCache = new SparseArray<>();
+      private boolean mCacheSpanIndices = false;
+
       /**
        * Returns the number of span occupied by the item in <code>section</code> at <code>position</code>.
        *
@@ -1216,6 +2627,20 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
        */
       abstract public int getSpanSize(int section, int position);
 
+      /**
+       * Returns the span size shared by all items in <code>section</code>, or 0 if the items
+       * have different span sizes. Lets the layout manager count and find the rows of a section
+       * without querying every item. Sections returning 0 build a row table in
+       * O(items in section) when the layout or a scroll jump first needs their rows. Default
+       * implementation returns 0.
+       *
+       * @param section The adapter section
+       * @return The span size of all items in section, or 0 if span sizes differ
+       */
+      public int getSectionSpanSize(int section) {
+         return 0;
+      }
+
       /**
        * Returns the final span index of the provided position.
        *
@@ -1234,14 +2659,25 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
        * <code>spanCount</code>(exclusive)
        */
       public int getSpanIndex(int section, int position, int spanCount) {
-         // TODO: cache them?
          final int positionSpanSize = getSpanSize(section, position);
          if (positionSpanSize >= spanCount) {
             return 0;
          }
 
          int spanIndex = 0;
-         for (int i = 0; i < position; ++i) {
+         int startPosition = 0;
+
+         // Continue from the closest cached item before position
+         if (mCacheSpanIndices) {
+            final SparseIntArray cache = mSpanIndexCache.get(section);
+            final int reference = cache != null ? findReferenceIndexFromCache(cache, position) : -1;
+            if (reference >= 0) {
+               spanIndex = cache.get(reference) + getSpanSize(section, reference);
+               startPosition = reference + 1;
+            }
+         }
+
+         for (int i = startPosition; i < position; ++i) {
             final int spanSize = getSpanSize(section, i);
             spanIndex += spanSize;
 
@@ -1259,6 +2695,91 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
 
          return 0;
       }
+
+      /**
+       * Sets whether the results of {@link #getSpanIndex(int, int, int)} method should be cached
+       * or not. By default these values are not cached. If you are not overriding
+       * {@link #getSpanIndex(int, int, int)}, you should set this to true for better performance.
+       * The cache is kept per section and invalidated by the adapter notify methods.
+       *
+       * @param cacheSpanIndices Whether results of getSpanIndex should be cached or not.
+       */
+      public void setSpanIndexCacheEnabled(boolean cacheSpanIndices) {
+         mCacheSpanIndices = cacheSpanIndices;
+         if (!cacheSpanIndices) {
+            mSpanIndexCache.clear();
+         }
+      }
+
+      /**
+       * Returns whether results of {@link #getSpanIndex(int, int, int)} method are cached or not.
+       *
+       * @return True if results of {@link #getSpanIndex(int, int, int)} are cached.
+       */
+      public boolean isSpanIndexCacheEnabled() {
+         return mCacheSpanIndices;
+      }
+
+      /**
+       * Clears the span index cache of all sections.
+       */
+      public void invalidateSpanIndexCache() {
+         mSpanIndexCache.clear();
+      }
+
+      /**
+       * Clears the span index cache of <code>section</code>.
+       *
+       * @param section The adapter section
+       */
+      public void invalidateSpanIndexCache(int section) {
+         mSpanIndexCache.remove(section);
+      }
+
+      void offsetSpanIndexCache(int sectionStart, int delta) {
+         offsetSectionKeys(mSpanIndexCache, sectionStart, delta);
+      }
+
+      int getCachedSpanIndex(int section, int position, int spanCount) {
+         if (!mCacheSpanIndices) {
+            return getSpanIndex(section, position, spanCount);
+         }
+
+         SparseIntArray cache = mSpanIndexCache.get(section);
+         if (cache == null) {
+            cache = new SparseIntArray();
+            mSpanIndexCache.put(section, cache);
+         }
+
+         final int existing = cache.get(position, -1);
+         if (existing != -1) {
+            return existing;
+         }
+
+         final int value = getSpanIndex(section, position, spanCount);
+         cache.put(position, value);
+         return value;
+      }
+
+      private static int findReferenceIndexFromCache(SparseIntArray cache, int position) {
+         int low = 0;
+         int high = cache.size() - 1;
+         while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (cache.keyAt(mid) < position) {
+               low = mid + 1;
+            }
+            else {
+               high = mid - 1;
+            }
+         }
+
+         final int index = low - 1;
+         if (index >= 0 && index < cache.size()) {
+            return cache.keyAt(index);
+         }
+         return -1;
+      }
    }
 
    public static class SavedState implements Parcelable {
@@ -1315,34 +2836,474 @@ public class StickyHeaderGridLayoutManager extends RecyclerView.LayoutManager im
       };
    }
 
-   private static class LayoutRow {
-      private boolean header;
-      private View headerView;
-      private int adapterPosition;
-      private int length;
-      private int top;
-      private int bottom;
+   /**
+    * Deque of laid out rows stored in parallel primitive arrays. Rows are added and removed at
+    * both ends while scrolling and the storage is reused, so steady scrolling does not allocate.
+    * Header rows are the rows with a header view.
+    *
+    * <p>Row edges are stored relative to a common base offset, moving all rows is O(1).</p>
+    *
+    * <p>Every row gets a serial number that does not change while the row is in the deque. Serials
+    * of header rows are kept in a second sorted deque, so header lookups are binary searches.</p>
+    */
+   static class LayoutRows {
+      private int[] adapterPositions;
+      private int[] lengths;
+      private int[] tops;
+      private int[] bottoms;
+      private View[] headerViews;
+      private int head;
+      private int size;
+      private int baseOffset;
+      private int firstSerial;
+
+      private int[] headerSerials;
+      private int headerHead;
+      private int headerCount;
+
+      LayoutRows(int capacity) {
+         allocate(Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1);
+      }
+
+      int size() {
+         return size;
+      }
+
+      boolean isEmpty() {
+         return size == 0;
+      }
+
+      void clear() {
+         Arrays.fill(headerViews, null);
+         head = 0;
+         size = 0;
+         baseOffset = 0;
+         firstSerial = 0;
+         headerHead = 0;
+         headerCount = 0;
+      }
+
+      void addFirst(View headerView, int adapterPosition, int length, int top, int bottom) {
+         ensureCapacity();
+         head = (head - 1) & (tops.length - 1);
+         size++;
+         firstSerial--;
+         set(head, headerView, adapterPosition, length, top, bottom);
+
+         if (headerView != null) {
+            headerHead = (headerHead - 1) & (headerSerials.length - 1);
+            headerSerials[headerHead] = firstSerial;
+            headerCount++;
+         }
+      }
+
+      void addLast(View headerView, int adapterPosition, int length, int top, int bottom) {
+         ensureCapacity();
+         size++;
+         set(index(size - 1), headerView, adapterPosition, length, top, bottom);
+
+         if (headerView != null) {
+            headerSerials[(headerHead + headerCount) & (headerSerials.length - 1)] = firstSerial + size - 1;
+            headerCount++;
+         }
+      }
+
+      void removeFirst() {
+         if (headerViews[head] != null) {
+            headerHead = (headerHead + 1) & (headerSerials.length - 1);
+            headerCount--;
+         }
+         headerViews[head] = null;
+         head = (head + 1) & (tops.length - 1);
+         size--;
+         firstSerial++;
+      }
+
+      void removeLast() {
+         final int index = index(size - 1);
+         if (headerViews[index] != null) {
+            headerCount--;
+         }
+         headerViews[index] = null;
+         size--;
+      }
+
+      /**
+       * Returns the first row with bottom edge below <code>y</code>, rows are sorted by their edges.
+       *
+       * @param y vertical coordinate
+       * @return The row index, or NO_POSITION if all rows are above.
+       */
+      int findFirstRowBelow(int y) {
+         final int row = findFirstRow(0, size, y + 1, false);
+         return row < size ? row : NO_POSITION;
+      }
 
-      public LayoutRow(int adapterPosition, int length, int top, int bottom) {
-         this.header = false;
-         this.headerView = null;
-         this.adapterPosition = adapterPosition;
-         this.length = length;
-         this.top = top;
-         this.bottom = bottom;
+      /**
+       * Returns the first row in range [from, to) with top or bottom edge at or below <code>y</code>.
+       *
+       * @param from first row to search
+       * @param to end of the search range, exclusive
+       * @param y vertical coordinate
+       * @param top whether to compare top or bottom row edges
+       * @return The row index, or <code>to</code> if all rows in range are above.
+       */
+      int findFirstRow(int from, int to, int y, boolean top) {
+         int low = from;
+         int high = to;
+         while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if ((top ? getTop(mid) : getBottom(mid)) >= y) {
+               high = mid;
+            }
+            else {
+               low = mid + 1;
+            }
+         }
+         return low;
+      }
+
+      /**
+       * Returns the last header row with index less than or equal to <code>row</code>.
+       *
+       * @param row row index
+       * @return The header row index, or NO_POSITION if there is no such header row.
+       */
+      int findHeaderAtOrBefore(int row) {
+         final int serial = firstSerial + row;
+         int low = 0;
+         int high = headerCount;
+         while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (getHeaderSerial(mid) > serial) {
+               high = mid;
+            }
+            else {
+               low = mid + 1;
+            }
+         }
+         return low > 0 ? getHeaderSerial(low - 1) - firstSerial : NO_POSITION;
+      }
+
+      /**
+       * Returns the first header row with index greater than <code>row</code>.
+       *
+       * @param row row index
+       * @return The header row index, or NO_POSITION if there is no such header row.
+       */
+      int findHeaderAfter(int row) {
+         final int serial = firstSerial + row;
+         int low = 0;
+         int high = headerCount;
+         while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (getHeaderSerial(mid) > serial) {
+               high = mid;
+            }
+            else {
+               low = mid + 1;
+            }
+         }
+         return low < headerCount ? getHeaderSerial(low) - firstSerial : NO_POSITION;
+      }
+
+      /**
+       * Returns the header row of the header at <code>adapterPosition</code>.
+       *
+       * @param adapterPosition header adapter position
+       * @return The header row index, or NO_POSITION if the header is not laid out.
+       */
+      int findHeaderRow(int adapterPosition) {
+         int low = 0;
+         int high = headerCount - 1;
+         while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int row = getHeaderSerial(mid) - firstSerial;
+            final int position = getAdapterPosition(row);
+            if (position < adapterPosition) {
+               low = mid + 1;
+            }
+            else if (position > adapterPosition) {
+               high = mid - 1;
+            }
+            else {
+               return row;
+            }
+         }
+         return NO_POSITION;
+      }
+
+      private int getHeaderSerial(int header) {
+         return headerSerials[(headerHead + header) & (headerSerials.length - 1)];
+      }
+
+      boolean isHeader(int row) {
+         return headerViews[index(row)] != null;
+      }
+
+      View getHeaderView(int row) {
+         return headerViews[index(row)];
+      }
+
+      int getAdapterPosition(int row) {
+         return adapterPositions[index(row)];
+      }
+
+      int getLength(int row) {
+         return lengths[index(row)];
+      }
+
+      int getTop(int row) {
+         return tops[index(row)] + baseOffset;
+      }
+
+      int getBottom(int row) {
+         return bottoms[index(row)] + baseOffset;
+      }
+
+      int getHeight(int row) {
+         final int index = index(row);
+         return bottoms[index] - tops[index];
+      }
+
+      void offset(int offset) {
+         baseOffset += offset;
+      }
+
+      private int index(int row) {
+         return (head + row) & (tops.length - 1);
+      }
+
+      private void set(int index, View headerView, int adapterPosition, int length, int top, int bottom) {
+         headerViews[index] = headerView;
+         adapterPositions[index] = adapterPosition;
+         lengths[index] = length;
+         tops[index] = top - baseOffset;
+         bottoms[index] = bottom - baseOffset;
+      }
+
+      private void ensureCapacity() {
+         if (size < tops.length) {
+            return;
+         }
+
+         final int[] oldAdapterPositions = adapterPositions;
+         final int[] oldLengths = lengths;
+         final int[] oldTops = tops;
+         final int[] oldBottoms = bottoms;
+         final View[] oldHeaderViews = headerViews;
+         final int[] oldHeaderSerials = headerSerials;
+         final int oldCapacity = oldTops.length;
+
+         // Unwrap rows to the start of the new arrays
+         allocate(oldCapacity * 2);
+         final int firstPart = oldCapacity - head;
+         copy(oldAdapterPositions, adapterPositions, firstPart);
+         copy(oldLengths, lengths, firstPart);
+         copy(oldTops, tops, firstPart);
+         copy(oldBottoms, bottoms, firstPart);
+         System.arraycopy(oldHeaderViews, head, headerViews, 0, firstPart);
+         System.arraycopy(oldHeaderViews, 0, headerViews, firstPart, head);
+         head = 0;
+
+         // Headers never outnumber rows, unwrap them the same way
+         final int firstHeaderPart = oldCapacity - headerHead;
+         System.arraycopy(oldHeaderSerials, headerHead, headerSerials, 0, firstHeaderPart);
+         System.arraycopy(oldHeaderSerials, 0, headerSerials, firstHeaderPart, headerHead);
+         headerHead = 0;
       }
 
-      public LayoutRow(View headerView, int adapterPosition, int length, int top, int bottom) {
-         this.header = true;
-         this.headerView = headerView;
-         this.adapterPosition = adapterPosition;
-         this.length = length;
-         this.top = top;
-         this.bottom = bottom;
+      private void copy(int[] from, int[] to, int firstPart) {
+         System.arraycopy(from, head, to, 0, firstPart);
+         System.arraycopy(from, 0, to, firstPart, head);
+      }
+
+      private void allocate(int capacity) {
+         adapterPositions = new int[capacity];
+         lengths = new int[capacity];
+         tops = new int[capacity];
+         bottoms = new int[capacity];
+         headerViews = new View[capacity];
+         headerSerials = new int[capacity];
+      }
+   }
+
+   /**
+    * Row boundaries of the section items, built with the same span walk used to fill rows.
+    */
+   private static class SectionRows {
+      private int[] starts = new int[0];
+      private int count;
+
+      void build(SpanSizeLookup spanSizeLookup, int section, int itemCount, int spanCount) {
+         starts = new int[Math.max(1, itemCount / spanCount + 1)];
+         count = 0;
+
+         int position = 0;
+         while (position < itemCount) {
+            if (count == starts.length) {
+               starts = Arrays.copyOf(starts, count * 2);
+            }
+            starts[count++] = position;
+
+            int spanIndex = 0;
+            int spanSize = spanSizeLookup.getSpanSize(section, position);
+            do {
+               position++;
+               if (position >= itemCount) {
+                  break;
+               }
+
+               spanIndex += spanSize;
+               spanSize = spanSizeLookup.getSpanSize(section, position);
+            } while (spanIndex + spanSize <= spanCount);
+         }
+      }
+
+      int getRowCount() {
+         return count;
+      }
+
+      int getRowStart(int row) {
+         return starts[row];
+      }
+
+      /**
+       * Returns the row containing the item at section <code>position</code>.
+       */
+      int findRow(int position) {
+         int low = 0;
+         int high = count - 1;
+         while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (starts[mid] <= position) {
+               low = mid;
+            }
+            else {
+               high = mid - 1;
+            }
+         }
+         return low;
+      }
+   }
+
+   /**
+    * Small LRU of removed but still bound header views, keyed by adapter position. Views are not
+    * known to RecyclerView while cached, so every view leaves the cache through
+    * {@link RecyclerView.Recycler#recycleView(View)}. Adapter changes flush the affected views
+    * into the recycler when they are notified, before RecyclerView processes them. RecyclerView
+    * then moves or invalidates the flushed views together with its own cached views.
+    */
+   private static class HeaderViewCache {
+      private int[] positions;
+      private View[] views;
+      private int size;
+      // RecyclerView keeps one recycler for its whole lifetime
+      private RecyclerView.Recycler recycler;
+
+      HeaderViewCache(int capacity) {
+         positions = new int[capacity];
+         views = new View[capacity];
+      }
+
+      int getCapacity() {
+         return views.length;
+      }
+
+      void setCapacity(int capacity) {
+         // Oldest views are at the start
+         final int evicted = Math.max(0, size - capacity);
+         for (int i = 0; i < evicted; ++i) {
+            recycler.recycleView(views[i]);
+         }
+
+         final int[] newPositions = new int[capacity];
+         final View[] newViews = new View[capacity];
+         System.arraycopy(positions, evicted, newPositions, 0, size - evicted);
+         System.arraycopy(views, evicted, newViews, 0, size - evicted);
+         positions = newPositions;
+         views = newViews;
+         size -= evicted;
+      }
+
+      void put(int position, View view, RecyclerView.Recycler recycler) {
+         this.recycler = recycler;
+         final int index = indexOf(position);
+         if (index >= 0) {
+            evictAt(index);
+         }
+         if (views.length == 0) {
+            recycler.recycleView(view);
+            return;
+         }
+
+         if (size == views.length) {
+            evictAt(0);
+         }
+         positions[size] = position;
+         views[size] = view;
+         size++;
+      }
+
+      View remove(int position) {
+         final int index = indexOf(position);
+         if (index < 0) {
+            return null;
+         }
+
+         final View view = views[index];
+         removeAt(index);
+         return view;
+      }
+
+      /**
+       * Recycles cached views with positions in the changed range.
+       */
+      void evict(int positionStart, int itemCount) {
+         for (int i = size - 1; i >= 0; --i) {
+            if (positions[i] >= positionStart && positions[i] < positionStart + itemCount) {
+               evictAt(i);
+            }
+         }
+      }
+
+      void evictAll() {
+         for (int i = 0; i < size; ++i) {
+            recycler.recycleView(views[i]);
+            views[i] = null;
+         }
+         size = 0;
+      }
+
+      /**
+       * Drops all views without recycling, used when the adapter is replaced.
+       */
+      void clear() {
+         Arrays.fill(views, null);
+         size = 0;
+         recycler = null;
+      }
+
+      private void evictAt(int index) {
+         final View view = views[index];
+         removeAt(index);
+         recycler.recycleView(view);
+      }
+
+      private int indexOf(int position) {
+         for (int i = 0; i < size; ++i) {
+            if (positions[i] == position) {
+               return i;
+            }
+         }
+         return -1;
       }
 
-      int getHeight() {
-         return bottom - top;
+      private void removeAt(int index) {
+         System.arraycopy(positions, index + 1, positions, index, size - index - 1);
+         System.arraycopy(views, index + 1, views, index, size - index - 1);
+         size--;
+         views[size] = null;
       }
    }
 
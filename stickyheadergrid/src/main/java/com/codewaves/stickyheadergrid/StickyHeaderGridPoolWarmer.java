@@ -0,0 +1,279 @@
+package com.codewaves.stickyheadergrid;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+import android.util.SparseIntArray;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the view holders needed for the first screen before the first layout and puts them
+ * into the {@link RecyclerView.RecycledViewPool}, so the first layout only binds them. Holders
+ * are counted per view type from the span count of {@link StickyHeaderGridLayoutManager} and the
+ * viewport size, created on a background executor and handed over to the pool on the main thread.
+ *
+ * <p>The adapter is set on RecyclerView when the warm-up finishes: RecyclerView clears its pool
+ * when it gets its first adapter, and a layout may run as soon as the adapter is set. Holders are
+ * put into the pool right after the listener returns, before the layout requested by
+ * {@link RecyclerView#setAdapter} runs.</p>
+ *
+ * <pre>
+ * recyclerView.setLayoutManager(layoutManager);
+ * new StickyHeaderGridPoolWarmer(recyclerView).warmUp(adapter, new OnWarmUpFinishedListener() {
+ *    public void onWarmUpFinished(int createdCount) {
+ *       recyclerView.setAdapter(adapter);
+ *    }
+ * });
+ * </pre>
+ *
+ * <p>{@link StickyHeaderGridAdapter#onCreateHeaderViewHolder} and
+ * {@link StickyHeaderGridAdapter#onCreateItemViewHolder} are called on the background thread and
+ * must not touch adapter data. If creating a holder there fails, for example because its layout
+ * needs a Looper, the remaining holders are created on the main thread, one per message.</p>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class StickyHeaderGridPoolWarmer {
+   public static final String TAG = "StickyHeaderGridPoolWarmer";
+
+   private static final int DEFAULT_ESTIMATED_HEIGHT_DP = 48;
+   // Default RecycledViewPool capacity per view type
+   private static final int DEFAULT_MAX_SCRAP = 5;
+
+   private static final Object sExecutorLock = new Object();
+   private static ExecutorService sInflateExecutor;
+
+   private final RecyclerView mRecyclerView;
+   private final Executor mBackgroundExecutor;
+   private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+   private int mEstimatedItemRowHeight;
+   private int mEstimatedHeaderHeight;
+   private volatile int mGeneration;
+
+   /**
+    * Callback invoked on the main thread when all holders of a warm-up are created. Holders are
+    * put into the pool right after it returns, set the adapter on RecyclerView here.
+    */
+   public interface OnWarmUpFinishedListener {
+      /**
+       * @param createdCount number of created view holders
+       */
+      void onWarmUpFinished(int createdCount);
+   }
+
+   /**
+    * Creates a pool warmer that creates holders on a shared background executor.
+    *
+    * @param recyclerView RecyclerView using {@link StickyHeaderGridLayoutManager}
+    */
+   public StickyHeaderGridPoolWarmer(@NonNull RecyclerView recyclerView) {
+      this(recyclerView, getDefaultExecutor());
+   }
+
+   /**
+    * Creates a pool warmer that creates holders on provided executor.
+    *
+    * @param recyclerView RecyclerView using {@link StickyHeaderGridLayoutManager}
+    * @param backgroundExecutor executor used to create view holders
+    */
+   public StickyHeaderGridPoolWarmer(@NonNull RecyclerView recyclerView, @NonNull Executor backgroundExecutor) {
+      mRecyclerView = recyclerView;
+      mBackgroundExecutor = backgroundExecutor;
+
+      final float density = recyclerView.getResources().getDisplayMetrics().density;
+      mEstimatedItemRowHeight = Math.round(DEFAULT_ESTIMATED_HEIGHT_DP * density);
+      mEstimatedHeaderHeight = Math.round(DEFAULT_ESTIMATED_HEIGHT_DP * density);
+   }
+
+   /**
+    * Sets the item row height used to count holders. Ignored if the layout manager has a fixed
+    * item height. Defaults to 48dp.
+    *
+    * @param height estimated item row height in pixels
+    */
+   public void setEstimatedItemRowHeight(int height) {
+      mEstimatedItemRowHeight = height;
+   }
+
+   /**
+    * Sets the header height used to count holders. Ignored if the layout manager has a fixed
+    * header height. Defaults to 48dp.
+    *
+    * @param height estimated header height in pixels
+    */
+   public void setEstimatedHeaderHeight(int height) {
+      mEstimatedHeaderHeight = height;
+   }
+
+   /**
+    * Starts creating holders of <code>adapter</code> for the first screen, cancelling a running
+    * warm-up. The adapter does not need to be set on RecyclerView, views are counted from the start
+    * of the data set or from a pending scroll position or restored state of the layout manager.
+    * Set the adapter from {@link OnWarmUpFinishedListener#onWarmUpFinished}, the first layout then
+    * only binds the holders. If the adapter is already set, holders already in the pool are counted
+    * and the first layout may run before the warm-up finishes.
+    *
+    * <p>Pool capacity of view types that need more than 5 holders is raised to the needed count.
+    * If RecyclerView is not laid out yet, display height is used as the viewport height. Must be
+    * called on the main thread.</p>
+    *
+    * @param adapter adapter to create holders with
+    * @param listener optional callback invoked right before the holders are put into the pool
+    */
+   public void warmUp(@NonNull StickyHeaderGridAdapter adapter, @Nullable final OnWarmUpFinishedListener listener) {
+      final RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+      if (!(layoutManager instanceof StickyHeaderGridLayoutManager)) {
+         throw new IllegalStateException("RecyclerView must use StickyHeaderGridLayoutManager");
+      }
+      final RecyclerView.Adapter currentAdapter = mRecyclerView.getAdapter();
+      if (currentAdapter != null && currentAdapter != adapter) {
+         throw new IllegalStateException("RecyclerView already uses another adapter");
+      }
+
+      final int viewportHeight = mRecyclerView.getHeight() > 0
+            ? mRecyclerView.getHeight() - mRecyclerView.getPaddingTop() - mRecyclerView.getPaddingBottom()
+            : mRecyclerView.getResources().getDisplayMetrics().heightPixels;
+      final SparseIntArray counts = new SparseIntArray();
+      ((StickyHeaderGridLayoutManager)layoutManager).countViewTypes(adapter,
+            viewportHeight, mEstimatedItemRowHeight, mEstimatedHeaderHeight, counts);
+
+      final RecyclerView.RecycledViewPool pool = mRecyclerView.getRecycledViewPool();
+      int total = 0;
+      for (int i = 0, n = counts.size(); i < n; ++i) {
+         final int count = counts.valueAt(i);
+         if (count > DEFAULT_MAX_SCRAP) {
+            pool.setMaxRecycledViews(counts.keyAt(i), count);
+         }
+         // Pool is cleared when RecyclerView gets its first adapter
+         final int pooled = currentAdapter != null ? pool.getRecycledViewCount(counts.keyAt(i)) : 0;
+         final int missing = count - pooled;
+         counts.put(counts.keyAt(i), Math.max(0, missing));
+         total += Math.max(0, missing);
+      }
+
+      final int[] viewTypes = new int[total];
+      int index = 0;
+      for (int i = 0, n = counts.size(); i < n; ++i) {
+         for (int j = 0, m = counts.valueAt(i); j < m; ++j) {
+            viewTypes[index++] = counts.keyAt(i);
+         }
+      }
+
+      final WarmUpTask task = new WarmUpTask(adapter, viewTypes, listener, ++mGeneration);
+      if (viewTypes.length == 0) {
+         mMainHandler.post(task.mFinishRunnable);
+      }
+      else {
+         mBackgroundExecutor.execute(task);
+      }
+   }
+
+   /**
+    * Cancels a running warm-up. Created holders are dropped, the listener is not called.
+    * Must be called on the main thread.
+    */
+   public void cancel() {
+      mGeneration++;
+   }
+
+   private static Executor getDefaultExecutor() {
+      synchronized (sExecutorLock) {
+         if (sInflateExecutor == null) {
+            sInflateExecutor = Executors.newSingleThreadExecutor();
+         }
+      }
+      return sInflateExecutor;
+   }
+
+   private class WarmUpTask implements Runnable {
+      private final StickyHeaderGridAdapter mAdapter;
+      private final int[] mViewTypes;
+      private final OnWarmUpFinishedListener mListener;
+      private final int mTaskGeneration;
+      // Filled on the background thread, handed over to the main thread by a posted message
+      private final List<RecyclerView.ViewHolder> mHolders;
+
+      private final Runnable mFinishRunnable = new Runnable() {
+         @Override
+         public void run() {
+            if (isCancelled()) {
+               return;
+            }
+
+            if (mListener != null) {
+               mListener.onWarmUpFinished(mHolders.size());
+               if (isCancelled()) {
+                  return;
+               }
+            }
+
+            final RecyclerView.RecycledViewPool pool = mRecyclerView.getRecycledViewPool();
+            for (int i = 0, n = mHolders.size(); i < n; ++i) {
+               pool.putRecycledView(mHolders.get(i));
+            }
+            mHolders.clear();
+         }
+      };
+
+      WarmUpTask(StickyHeaderGridAdapter adapter, int[] viewTypes, OnWarmUpFinishedListener listener, int generation) {
+         mAdapter = adapter;
+         mViewTypes = viewTypes;
+         mListener = listener;
+         mTaskGeneration = generation;
+         mHolders = new ArrayList<>(viewTypes.length);
+      }
+
+      // Background thread
+      @Override
+      public void run() {
+         for (int i = 0; i < mViewTypes.length; ++i) {
+            if (mGeneration != mTaskGeneration) {
+               return;
+            }
+
+            try {
+               mHolders.add(mAdapter.createViewHolder(mRecyclerView, mViewTypes[i]));
+            }
+            catch (RuntimeException e) {
+               Log.w(TAG, "Failed to create view holder off the main thread, continuing on the main thread", e);
+               postCreate(i);
+               return;
+            }
+         }
+         mMainHandler.post(mFinishRunnable);
+      }
+
+      private void postCreate(final int index) {
+         mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+               if (isCancelled()) {
+                  return;
+               }
+
+               mHolders.add(mAdapter.createViewHolder(mRecyclerView, mViewTypes[index]));
+               if (index + 1 < mViewTypes.length) {
+                  postCreate(index + 1);
+               }
+               else {
+                  mFinishRunnable.run();
+               }
+            }
+         });
+      }
+
+      // Main thread, holders of a replaced adapter do not fit the pool
+      private boolean isCancelled() {
+         final RecyclerView.Adapter adapter = mRecyclerView.getAdapter();
+         return mGeneration != mTaskGeneration || (adapter != null && adapter != mAdapter);
+      }
+   }
+}
@@ -0,0 +1,162 @@
+package com.codewaves.stickyheadergrid;
+
+import java.util.ArrayList;
+
+/**
+ * Item range notifications queued during a batch update. A notification is merged into the
+ * previous one when both have the same type and their ranges touch, items inserted and removed
+ * again in the same batch are never reported. A data set change drops all queued notifications.
+ */
+final class UpdateBatch {
+   private static final int CHANGE = 0;
+   private static final int INSERT = 1;
+   private static final int REMOVE = 2;
+   private static final int MOVE = 3;
+
+   private final ArrayList<UpdateOp> mUpdates = new ArrayList<>();
+   private boolean mDataSetChanged;
+
+   /**
+    * Receives the merged notifications when the batch is dispatched.
+    */
+   interface Target {
+      void onDataSetChanged();
+
+      void onItemRangeChanged(int positionStart, int count, Object payload);
+
+      void onItemRangeInserted(int positionStart, int count);
+
+      void onItemRangeRemoved(int positionStart, int count);
+
+      void onItemMoved(int fromPosition, int toPosition);
+   }
+
+   private static class UpdateOp {
+      private int type;
+      private int positionStart;
+      private int count;
+      private Object payload;
+      private int toPosition;
+
+      UpdateOp(int type, int positionStart, int count, Object payload) {
+         this.type = type;
+         this.positionStart = positionStart;
+         this.count = count;
+         this.payload = payload;
+      }
+   }
+
+   void addDataSetChanged() {
+      mDataSetChanged = true;
+      mUpdates.clear();
+   }
+
+   void addItemRangeChanged(int positionStart, int count, Object payload) {
+      if (mDataSetChanged) {
+         return;
+      }
+
+      final UpdateOp last = getLastUpdate();
+      if (last != null && last.type == CHANGE && last.payload == payload
+            && positionStart <= last.positionStart + last.count
+            && positionStart + count >= last.positionStart) {
+         final int end = Math.max(last.positionStart + last.count, positionStart + count);
+         last.positionStart = Math.min(last.positionStart, positionStart);
+         last.count = end - last.positionStart;
+      }
+      else {
+         mUpdates.add(new UpdateOp(CHANGE, positionStart, count, payload));
+      }
+   }
+
+   void addItemRangeInserted(int positionStart, int count) {
+      if (mDataSetChanged) {
+         return;
+      }
+
+      final UpdateOp last = getLastUpdate();
+      if (last != null && last.type == INSERT
+            && positionStart >= last.positionStart
+            && positionStart <= last.positionStart + last.count) {
+         // Inserted into or right after the previously inserted range
+         last.count += count;
+      }
+      else {
+         mUpdates.add(new UpdateOp(INSERT, positionStart, count, null));
+      }
+   }
+
+   void addItemRangeRemoved(int positionStart, int count) {
+      if (mDataSetChanged) {
+         return;
+      }
+
+      final UpdateOp last = getLastUpdate();
+      if (last != null && last.type == INSERT
+            && positionStart >= last.positionStart
+            && positionStart + count <= last.positionStart + last.count) {
+         // Removing items inserted in the same batch, observers never have to see them
+         last.count -= count;
+         if (last.count == 0) {
+            mUpdates.remove(mUpdates.size() - 1);
+         }
+      }
+      else if (last != null && last.type == REMOVE && positionStart == last.positionStart) {
+         last.count += count;
+      }
+      else if (last != null && last.type == REMOVE && positionStart + count == last.positionStart) {
+         last.positionStart = positionStart;
+         last.count += count;
+      }
+      else {
+         mUpdates.add(new UpdateOp(REMOVE, positionStart, count, null));
+      }
+   }
+
+   void addItemMoved(int fromPosition, int toPosition) {
+      if (mDataSetChanged) {
+         return;
+      }
+
+      final UpdateOp op = new UpdateOp(MOVE, fromPosition, 1, null);
+      op.toPosition = toPosition;
+      mUpdates.add(op);
+   }
+
+   /**
+    * Sends the queued notifications to <code>target</code> in order and empties the batch.
+    *
+    * @param target receiver of the notifications
+    */
+   void dispatch(Target target) {
+      if (mDataSetChanged) {
+         mDataSetChanged = false;
+         target.onDataSetChanged();
+         return;
+      }
+
+      for (int i = 0, n = mUpdates.size(); i < n; ++i) {
+         final UpdateOp op = mUpdates.get(i);
+         switch (op.type) {
+            case CHANGE:
+               target.onItemRangeChanged(op.positionStart, op.count, op.payload);
+               break;
+            case INSERT:
+               target.onItemRangeInserted(op.positionStart, op.count);
+               break;
+            case REMOVE:
+               target.onItemRangeRemoved(op.positionStart, op.count);
+               break;
+            case MOVE:
+               target.onItemMoved(op.positionStart, op.toPosition);
+               break;
+         }
+      }
+      mUpdates.clear();
+   }
+
+   private UpdateOp getLastUpdate() {
+      final int size = mUpdates.size();
+      return size > 0 ? mUpdates.get(size - 1) : null;
+   }
+}
@@ -0,0 +1,85 @@
+package com.codewaves.stickyheadergrid;
+
+import java.util.Arrays;
+
+/**
+ * Lazily filled table of packed view types indexed by adapter position. Storage is split into
+ * fixed size pages allocated on first write, so memory depends on the range of positions that
+ * were actually queried and not on the adapter size.
+ */
+final class ViewTypeCache {
+   static final int NO_TYPE = -1;
+
+   private static final int PAGE_SHIFT = 10;
+   private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+   private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+   private int[][] mPages = new int[0][];
+
+   int get(int position) {
+      final int page = position >> PAGE_SHIFT;
+      if (page >= mPages.length || mPages[page] == null) {
+         return NO_TYPE;
+      }
+      return mPages[page][position & PAGE_MASK];
+   }
+
+   void put(int position, int type) {
+      final int page = position >> PAGE_SHIFT;
+      if (page >= mPages.length) {
+         mPages = Arrays.copyOf(mPages, Math.max(page + 1, mPages.length * 2));
+      }
+      if (mPages[page] == null) {
+         mPages[page] = new int[PAGE_SIZE];
+         Arrays.fill(mPages[page], NO_TYPE);
+      }
+      mPages[page][position & PAGE_MASK] = type;
+   }
+
+   /**
+    * Forgets cached types of <code>count</code> positions starting at <code>positionStart</code>.
+    *
+    * @param positionStart first position to invalidate
+    * @param count number of positions to invalidate
+    */
+   void invalidate(int positionStart, int count) {
+      final int end = positionStart + count;
+      int position = positionStart;
+      while (position < end) {
+         final int page = position >> PAGE_SHIFT;
+         if (page >= mPages.length) {
+            break;
+         }
+
+         final int pageEnd = Math.min(end, (page + 1) << PAGE_SHIFT);
+         if (mPages[page] != null) {
+            Arrays.fill(mPages[page], position & PAGE_MASK, ((pageEnd - 1) & PAGE_MASK) + 1, NO_TYPE);
+         }
+         position = pageEnd;
+      }
+   }
+
+   /**
+    * Forgets cached types of all positions starting at <code>positionStart</code>. Used for
+    * structural changes, which shift all following positions.
+    *
+    * @param positionStart first position to invalidate
+    */
+   void invalidateFrom(int positionStart) {
+      final int firstPage = positionStart >> PAGE_SHIFT;
+      if (firstPage >= mPages.length) {
+         return;
+      }
+
+      if (mPages[firstPage] != null) {
+         Arrays.fill(mPages[firstPage], positionStart & PAGE_MASK, PAGE_SIZE, NO_TYPE);
+      }
+      for (int page = firstPage + 1; page < mPages.length; ++page) {
+         mPages[page] = null;
+      }
+   }
+
+   void clear() {
+      mPages = new int[0][];
+   }
+}
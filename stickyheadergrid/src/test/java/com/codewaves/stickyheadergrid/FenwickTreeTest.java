@@ -0,0 +1,153 @@
+package com.codewaves.stickyheadergrid;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Compares {@link FenwickTree} against a plain list of values.
+ */
+public class FenwickTreeTest {
+   private static final int SEEDS = 20;
+   private static final int OPERATIONS = 500;
+
+   @Test
+   public void appendAndUpdate() {
+      for (int seed = 0; seed < SEEDS; ++seed) {
+         final Random random = new Random(seed);
+         final FenwickTree tree = new FenwickTree();
+         final List<Integer> values = new ArrayList<>();
+
+         for (int i = 0; i < OPERATIONS; ++i) {
+            final int operation = random.nextInt(3);
+            if (operation == 0 || values.isEmpty()) {
+               final int value = random.nextInt(10);
+               tree.append(value);
+               values.add(value);
+            }
+            else if (operation == 1) {
+               final int index = random.nextInt(values.size());
+               final int value = random.nextInt(10);
+               tree.set(index, value);
+               values.set(index, value);
+            }
+            else {
+               final int index = random.nextInt(values.size());
+               final int delta = random.nextInt(10) - values.get(index);
+               tree.add(index, delta);
+               values.set(index, values.get(index) + delta);
+            }
+            assertMatches(values, tree);
+         }
+      }
+   }
+
+   @Test
+   public void insertAndRemove() {
+      for (int seed = 0; seed < SEEDS; ++seed) {
+         final Random random = new Random(seed);
+         final FenwickTree tree = new FenwickTree();
+         final List<Integer> values = new ArrayList<>();
+
+         for (int i = 0; i < OPERATIONS; ++i) {
+            final int operation = random.nextInt(4);
+            if (operation <= 1 || values.isEmpty()) {
+               final int index = random.nextInt(values.size() + 1);
+               final int value = random.nextInt(10);
+               tree.insert(index, value);
+               values.add(index, value);
+            }
+            else if (operation == 2) {
+               final int index = random.nextInt(values.size());
+               tree.remove(index);
+               values.remove(index);
+            }
+            else {
+               final int index = random.nextInt(values.size());
+               final int value = random.nextInt(10);
+               tree.set(index, value);
+               values.set(index, value);
+            }
+            assertMatches(values, tree);
+         }
+      }
+   }
+
+   @Test
+   public void clearKeepsWorking() {
+      final FenwickTree tree = new FenwickTree();
+      final List<Integer> values = new ArrayList<>();
+      for (int i = 0; i < 100; ++i) {
+         tree.append(i);
+      }
+
+      tree.clear(4);
+      assertMatches(values, tree);
+
+      for (int i = 0; i < 50; ++i) {
+         tree.append(i % 7);
+         values.add(i % 7);
+      }
+      assertMatches(values, tree);
+   }
+
+   @Test
+   public void invalidIndex() {
+      final FenwickTree tree = new FenwickTree();
+      tree.append(1);
+
+      try {
+         tree.get(1);
+         fail();
+      }
+      catch (IndexOutOfBoundsException ignored) {
+      }
+      try {
+         tree.insert(2, 1);
+         fail();
+      }
+      catch (IndexOutOfBoundsException ignored) {
+      }
+      try {
+         tree.remove(-1);
+         fail();
+      }
+      catch (IndexOutOfBoundsException ignored) {
+      }
+   }
+
+   private static void assertMatches(List<Integer> values, FenwickTree tree) {
+      assertEquals(values.size(), tree.size());
+
+      int sum = 0;
+      for (int i = 0; i < values.size(); ++i) {
+         assertEquals(values.get(i).intValue(), tree.get(i));
+         assertEquals(sum, tree.sum(i));
+         sum += values.get(i);
+      }
+      assertEquals(sum, tree.sum(values.size()));
+      assertEquals(sum, tree.getTotal());
+
+      for (int target = 0; target <= sum + 1; ++target) {
+         assertEquals("target " + target, naiveFind(values, target), tree.find(target));
+      }
+   }
+
+   private static int naiveFind(List<Integer> values, int target) {
+      // Largest index whose prefix sum is not above target
+      int index = 0;
+      int sum = 0;
+      for (int i = 0; i < values.size(); ++i) {
+         sum += values.get(i);
+         if (sum <= target) {
+            index = i + 1;
+         }
+      }
+      return index;
+   }
+}
@@ -0,0 +1,161 @@
+package com.codewaves.stickyheadergrid;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares {@link HeightEstimator} averages against lists of all added heights, while sections
+ * are inserted and removed.
+ */
+public class HeightEstimatorTest {
+   private static final int SEEDS = 20;
+   private static final int OPERATIONS = 400;
+   private static final int VIEW_TYPES = 4;
+
+   @Test
+   public void matchesHeightLists() {
+      for (int seed = 0; seed < SEEDS; ++seed) {
+         final Random random = new Random(seed);
+         final HeightEstimator estimator = new HeightEstimator();
+         // Heights per section, sections shift on insert and remove
+         final List<List<Integer>> sectionRows = new ArrayList<>();
+         final Map<Integer, List<Integer>> typeRows = new HashMap<>();
+         final Map<Integer, List<Integer>> typeHeaders = new HashMap<>();
+         final List<Integer> rows = new ArrayList<>();
+         final List<Integer> headers = new ArrayList<>();
+         for (int i = 0; i < 10; ++i) {
+            sectionRows.add(new ArrayList<Integer>());
+         }
+
+         for (int i = 0; i < OPERATIONS; ++i) {
+            final int operation = random.nextInt(10);
+            if (operation < 4) {
+               final int section = random.nextInt(sectionRows.size());
+               final int viewType = random.nextInt(VIEW_TYPES);
+               final int height = 10 + random.nextInt(100);
+               final int oldAverage = average(sectionRows.get(section));
+               final boolean changed = estimator.addRow(section, viewType, height);
+
+               sectionRows.get(section).add(height);
+               list(typeRows, viewType).add(height);
+               rows.add(height);
+               assertEquals(oldAverage != average(sectionRows.get(section)), changed);
+            }
+            else if (operation < 6) {
+               final int viewType = random.nextInt(VIEW_TYPES);
+               final int height = 10 + random.nextInt(50);
+               estimator.addHeader(viewType, height);
+               list(typeHeaders, viewType).add(height);
+               headers.add(height);
+            }
+            else if (operation == 6) {
+               final int section = random.nextInt(sectionRows.size() + 1);
+               estimator.insertSection(section);
+               sectionRows.add(section, new ArrayList<Integer>());
+            }
+            else if (operation == 7 && sectionRows.size() > 1) {
+               final int section = random.nextInt(sectionRows.size());
+               estimator.removeSection(section);
+               sectionRows.remove(section);
+            }
+            else if (operation == 8 && random.nextInt(10) == 0) {
+               estimator.clearSections();
+               for (List<Integer> heights : sectionRows) {
+                  heights.clear();
+               }
+            }
+            else if (operation == 9 && random.nextInt(20) == 0) {
+               estimator.clear();
+               for (List<Integer> heights : sectionRows) {
+                  heights.clear();
+               }
+               typeRows.clear();
+               typeHeaders.clear();
+               rows.clear();
+               headers.clear();
+            }
+
+            for (int section = 0; section < sectionRows.size(); ++section) {
+               for (int viewType = 0; viewType < VIEW_TYPES; ++viewType) {
+                  final int expected;
+                  if (!sectionRows.get(section).isEmpty()) {
+                     expected = average(sectionRows.get(section));
+                  }
+                  else if (typeRows.containsKey(viewType)) {
+                     expected = average(typeRows.get(viewType));
+                  }
+                  else {
+                     expected = average(rows);
+                  }
+                  assertEquals("seed " + seed, expected, estimator.estimateRowHeight(section, viewType));
+               }
+            }
+            for (int viewType = 0; viewType < VIEW_TYPES; ++viewType) {
+               final int expected = typeHeaders.containsKey(viewType) ? average(typeHeaders.get(viewType)) : average(headers);
+               assertEquals("seed " + seed, expected, estimator.estimateHeaderHeight(viewType));
+            }
+         }
+      }
+   }
+
+   @Test
+   public void staleAfterPublishedAverageDrifts() {
+      final HeightEstimator estimator = new HeightEstimator();
+      estimator.addRow(0, 1, 100);
+      assertFalse(estimator.isStale());
+
+      // Section 1 has no own rows and uses the view type average
+      assertEquals(100, estimator.estimateRowHeight(1, 1));
+
+      // Drift below 1/8 of the published value is ignored
+      estimator.addRow(0, 1, 110);
+      assertFalse(estimator.isStale());
+
+      estimator.addRow(0, 1, 200);
+      assertTrue(estimator.isStale());
+
+      estimator.markFresh();
+      assertFalse(estimator.isStale());
+   }
+
+   @Test
+   public void sectionAveragesNeverMakeEstimatesStale() {
+      final HeightEstimator estimator = new HeightEstimator();
+      estimator.addRow(0, 1, 100);
+      assertEquals(100, estimator.estimateRowHeight(0, 1));
+
+      // Only view type and global averages are published
+      estimator.addRow(0, 2, 500);
+      assertFalse(estimator.isStale());
+   }
+
+   private static List<Integer> list(Map<Integer, List<Integer>> lists, int key) {
+      List<Integer> list = lists.get(key);
+      if (list == null) {
+         list = new ArrayList<>();
+         lists.put(key, list);
+      }
+      return list;
+   }
+
+   private static int average(List<Integer> heights) {
+      if (heights.isEmpty()) {
+         return 0;
+      }
+
+      long sum = 0;
+      for (int height : heights) {
+         sum += height;
+      }
+      return (int)(sum / heights.size());
+   }
+}
@@ -0,0 +1,167 @@
+package com.codewaves.stickyheadergrid;
+
+import android.view.View;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static android.support.v7.widget.RecyclerView.NO_POSITION;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Compares {@link StickyHeaderGridLayoutManager.LayoutRows} against a list of rows while rows are
+ * added and removed at both ends, so the ring buffer wraps, grows and keeps header serials.
+ */
+public class LayoutRowsTest {
+   private static final int SEEDS = 30;
+   private static final int OPERATIONS = 400;
+
+   private static class Row {
+      final View headerView;
+      final int adapterPosition;
+      final int length;
+      int top;
+      int bottom;
+
+      Row(View headerView, int adapterPosition, int length, int top, int bottom) {
+         this.headerView = headerView;
+         this.adapterPosition = adapterPosition;
+         this.length = length;
+         this.top = top;
+         this.bottom = bottom;
+      }
+   }
+
+   @Test
+   public void matchesRowList() {
+      for (int seed = 0; seed < SEEDS; ++seed) {
+         final Random random = new Random(seed);
+         // Small capacity, so the arrays grow while wrapped
+         final StickyHeaderGridLayoutManager.LayoutRows rows = new StickyHeaderGridLayoutManager.LayoutRows(2);
+         final List<Row> expected = new ArrayList<>();
+
+         for (int i = 0; i < OPERATIONS; ++i) {
+            final int operation = random.nextInt(9);
+            if (operation < 3 || expected.isEmpty()) {
+               final Row row = nextRow(random, expected.isEmpty() ? null : expected.get(expected.size() - 1));
+               rows.addLast(row.headerView, row.adapterPosition, row.length, row.top, row.bottom);
+               expected.add(row);
+            }
+            else if (operation < 6) {
+               final Row row = previousRow(random, expected.get(0));
+               rows.addFirst(row.headerView, row.adapterPosition, row.length, row.top, row.bottom);
+               expected.add(0, row);
+            }
+            else if (operation == 6) {
+               rows.removeFirst();
+               expected.remove(0);
+            }
+            else if (operation == 7) {
+               rows.removeLast();
+               expected.remove(expected.size() - 1);
+            }
+            else if (random.nextInt(10) == 0) {
+               rows.clear();
+               expected.clear();
+            }
+            else {
+               final int offset = random.nextInt(200) - 100;
+               rows.offset(offset);
+               for (Row row : expected) {
+                  row.top += offset;
+                  row.bottom += offset;
+               }
+            }
+            assertMatches(expected, rows);
+         }
+      }
+   }
+
+   private static Row nextRow(Random random, Row last) {
+      final int top = last != null ? last.bottom : random.nextInt(100);
+      final int position = last != null ? last.adapterPosition + last.length : 0;
+      return newRow(random, position, top);
+   }
+
+   private static Row previousRow(Random random, Row first) {
+      final Row row = newRow(random, 0, 0);
+      return new Row(row.headerView, first.adapterPosition - row.length, row.length,
+            first.top - (row.bottom - row.top), first.top);
+   }
+
+   private static Row newRow(Random random, int adapterPosition, int top) {
+      final boolean header = random.nextInt(3) == 0;
+      final int length = header ? 1 : 1 + random.nextInt(4);
+      final int height = 1 + random.nextInt(50);
+      return new Row(header ? new View(null) : null, adapterPosition, length, top, top + height);
+   }
+
+   private static void assertMatches(List<Row> expected, StickyHeaderGridLayoutManager.LayoutRows rows) {
+      assertEquals(expected.size(), rows.size());
+      assertEquals(expected.isEmpty(), rows.isEmpty());
+
+      for (int i = 0; i < expected.size(); ++i) {
+         final Row row = expected.get(i);
+         assertSame(row.headerView, rows.getHeaderView(i));
+         assertEquals(row.headerView != null, rows.isHeader(i));
+         assertEquals(row.adapterPosition, rows.getAdapterPosition(i));
+         assertEquals(row.length, rows.getLength(i));
+         assertEquals(row.top, rows.getTop(i));
+         assertEquals(row.bottom, rows.getBottom(i));
+         assertEquals(row.bottom - row.top, rows.getHeight(i));
+
+         assertEquals(naiveHeaderAtOrBefore(expected, i), rows.findHeaderAtOrBefore(i));
+         assertEquals(naiveHeaderAfter(expected, i), rows.findHeaderAfter(i));
+         assertEquals(row.headerView != null ? i : NO_POSITION, rows.findHeaderRow(row.adapterPosition));
+      }
+
+      if (!expected.isEmpty()) {
+         final int from = expected.get(0).top - 5;
+         final int to = expected.get(expected.size() - 1).bottom + 5;
+         for (int y = from; y <= to; ++y) {
+            assertEquals("y " + y, naiveFirstRowBelow(expected, y), rows.findFirstRowBelow(y));
+            assertEquals("y " + y, naiveFirstRowWithTop(expected, y), rows.findFirstRow(0, expected.size(), y, true));
+         }
+      }
+   }
+
+   private static int naiveHeaderAtOrBefore(List<Row> expected, int row) {
+      for (int i = row; i >= 0; --i) {
+         if (expected.get(i).headerView != null) {
+            return i;
+         }
+      }
+      return NO_POSITION;
+   }
+
+   private static int naiveHeaderAfter(List<Row> expected, int row) {
+      for (int i = row + 1; i < expected.size(); ++i) {
+         if (expected.get(i).headerView != null) {
+            return i;
+         }
+      }
+      return NO_POSITION;
+   }
+
+   private static int naiveFirstRowBelow(List<Row> expected, int y) {
+      for (int i = 0; i < expected.size(); ++i) {
+         if (expected.get(i).bottom > y) {
+            return i;
+         }
+      }
+      return NO_POSITION;
+   }
+
+   private static int naiveFirstRowWithTop(List<Row> expected, int y) {
+      for (int i = 0; i < expected.size(); ++i) {
+         if (expected.get(i).top >= y) {
+            return i;
+         }
+      }
+      return expected.size();
+   }
+}
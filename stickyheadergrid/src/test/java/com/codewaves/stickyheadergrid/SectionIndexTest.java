@@ -0,0 +1,116 @@
+package com.codewaves.stickyheadergrid;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares {@link SectionIndex} against a plain list of section lengths.
+ */
+public class SectionIndexTest {
+   private static final int SEEDS = 20;
+   private static final int OPERATIONS = 500;
+
+   @Test
+   public void emptyIndex() {
+      final SectionIndex index = new SectionIndex();
+      index.clear(0);
+
+      assertEquals(0, index.getSectionCount());
+      assertEquals(0, index.getTotal());
+   }
+
+   @Test
+   public void appendAndResize() {
+      for (int seed = 0; seed < SEEDS; ++seed) {
+         final Random random = new Random(seed);
+         final SectionIndex index = new SectionIndex();
+         final List<Integer> lengths = new ArrayList<>();
+         index.clear(random.nextInt(40));
+
+         for (int i = 0; i < OPERATIONS; ++i) {
+            final int operation = random.nextInt(4);
+            if (operation == 0 || lengths.isEmpty()) {
+               final int length = randomLength(random);
+               index.append(length);
+               lengths.add(length);
+            }
+            else if (operation == 1) {
+               final int section = random.nextInt(lengths.size());
+               final int length = randomLength(random);
+               index.setLength(section, length);
+               lengths.set(section, length);
+            }
+            else if (operation == 2) {
+               final int section = random.nextInt(lengths.size());
+               final int delta = random.nextInt(20) - Math.min(10, lengths.get(section) - 1);
+               index.addLength(section, delta);
+               lengths.set(section, lengths.get(section) + delta);
+            }
+            else {
+               final int capacity = random.nextInt(40);
+               index.clear(capacity);
+               lengths.clear();
+            }
+            assertMatches(lengths, index);
+         }
+      }
+   }
+
+   @Test
+   public void insertAndRemove() {
+      for (int seed = 0; seed < SEEDS; ++seed) {
+         final Random random = new Random(seed);
+         final SectionIndex index = new SectionIndex();
+         final List<Integer> lengths = new ArrayList<>();
+         index.clear(0);
+
+         for (int i = 0; i < OPERATIONS; ++i) {
+            final int operation = random.nextInt(4);
+            if (operation <= 1 || lengths.isEmpty()) {
+               final int section = random.nextInt(lengths.size() + 1);
+               final int length = randomLength(random);
+               index.insert(section, length);
+               lengths.add(section, length);
+            }
+            else if (operation == 2) {
+               final int section = random.nextInt(lengths.size());
+               index.remove(section);
+               lengths.remove(section);
+            }
+            else {
+               final int section = random.nextInt(lengths.size());
+               final int delta = random.nextInt(20) - Math.min(10, lengths.get(section) - 1);
+               index.addLength(section, delta);
+               lengths.set(section, lengths.get(section) + delta);
+            }
+            assertMatches(lengths, index);
+         }
+      }
+   }
+
+   static void assertMatches(List<Integer> lengths, SectionIndex index) {
+      assertEquals(lengths.size(), index.getSectionCount());
+
+      int start = 0;
+      for (int section = 0; section < lengths.size(); ++section) {
+         final int length = lengths.get(section);
+         assertEquals(start, index.getStart(section));
+         assertEquals(length, index.getLength(section));
+         for (int position = start; position < start + length; ++position) {
+            assertEquals("position " + position, section, index.findSection(position));
+         }
+         start += length;
+      }
+      assertEquals(start, index.getTotal());
+   }
+
+   static int randomLength(Random random) {
+      // Header and up to 12 items
+      return 1 + random.nextInt(13);
+   }
+}
@@ -0,0 +1,214 @@
+package com.codewaves.stickyheadergrid;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Applies random notifications to a list of item IDs and checks that replaying the merged
+ * notifications of {@link UpdateBatch} on the original list gives the same items, with every
+ * changed item reported with its payload.
+ */
+public class UpdateBatchTest {
+   private static final int SEEDS = 200;
+   private static final int OPERATIONS = 40;
+   private static final int NEW_ITEM = -1;
+   private static final Object[] PAYLOADS = { null, "a", "b" };
+
+   @Test
+   public void mergedUpdatesReplayToSameItems() {
+      for (int seed = 0; seed < SEEDS; ++seed) {
+         final Random random = new Random(seed);
+         final List<Integer> original = new ArrayList<>();
+         for (int i = 0, n = random.nextInt(30); i < n; ++i) {
+            original.add(i);
+         }
+
+         final List<Integer> items = new ArrayList<>(original);
+         final Map<Integer, Set<Object>> changes = new HashMap<>();
+         final UpdateBatch batch = new UpdateBatch();
+         int nextId = original.size();
+
+         for (int i = 0; i < OPERATIONS; ++i) {
+            final int operation = random.nextInt(4);
+            if (operation == 0 || items.isEmpty()) {
+               // Favor inserts next to the previous ones, so they get merged
+               final int start = random.nextInt(items.size() + 1);
+               final int count = 1 + random.nextInt(3);
+               for (int j = 0; j < count; ++j) {
+                  items.add(start + j, nextId++);
+               }
+               batch.addItemRangeInserted(start, count);
+            }
+            else if (operation == 1) {
+               final int start = random.nextInt(items.size());
+               final int count = 1 + random.nextInt(Math.min(3, items.size() - start));
+               for (int j = 0; j < count; ++j) {
+                  items.remove(start);
+               }
+               batch.addItemRangeRemoved(start, count);
+            }
+            else if (operation == 2) {
+               final int start = random.nextInt(items.size());
+               final int count = 1 + random.nextInt(Math.min(3, items.size() - start));
+               final Object payload = PAYLOADS[random.nextInt(PAYLOADS.length)];
+               for (int j = start; j < start + count; ++j) {
+                  addChange(changes, items.get(j), payload);
+               }
+               batch.addItemRangeChanged(start, count, payload);
+            }
+            else {
+               final int from = random.nextInt(items.size());
+               final int to = random.nextInt(items.size());
+               items.add(to, items.remove(from));
+               batch.addItemMoved(from, to);
+            }
+         }
+
+         final ReplayTarget target = new ReplayTarget(original);
+         batch.dispatch(target);
+
+         assertEquals("seed " + seed, items.size(), target.items.size());
+         for (int i = 0; i < items.size(); ++i) {
+            final int id = items.get(i);
+            if (id < original.size()) {
+               assertEquals("seed " + seed, id, target.items.get(i).intValue());
+            }
+            else {
+               assertEquals("seed " + seed, NEW_ITEM, target.items.get(i).intValue());
+            }
+         }
+         for (Map.Entry<Integer, Set<Object>> entry : changes.entrySet()) {
+            if (entry.getKey() < original.size() && items.contains(entry.getKey())) {
+               final Set<Object> reported = target.changes.get(entry.getKey());
+               assertTrue("seed " + seed, reported != null && reported.containsAll(entry.getValue()));
+            }
+         }
+      }
+   }
+
+   @Test
+   public void insertedItemsRemovedInSameBatchAreNotReported() {
+      final UpdateBatch batch = new UpdateBatch();
+      batch.addItemRangeInserted(5, 3);
+      batch.addItemRangeInserted(8, 2);
+      batch.addItemRangeRemoved(6, 4);
+      batch.addItemRangeRemoved(5, 1);
+
+      final ReplayTarget target = new ReplayTarget(new ArrayList<Integer>());
+      batch.dispatch(target);
+
+      assertEquals(0, target.calls);
+   }
+
+   @Test
+   public void adjacentRangesAreMerged() {
+      final UpdateBatch batch = new UpdateBatch();
+      batch.addItemRangeChanged(4, 2, null);
+      batch.addItemRangeChanged(2, 2, null);
+      batch.addItemRangeChanged(6, 1, null);
+
+      final ReplayTarget target = new ReplayTarget(list(10));
+      batch.dispatch(target);
+
+      assertEquals(1, target.calls);
+      for (int i = 2; i < 7; ++i) {
+         assertTrue(target.changes.containsKey(i));
+      }
+      assertEquals(5, target.changes.size());
+   }
+
+   @Test
+   public void dataSetChangeDropsQueuedUpdates() {
+      final UpdateBatch batch = new UpdateBatch();
+      batch.addItemRangeInserted(0, 2);
+      batch.addDataSetChanged();
+      batch.addItemRangeRemoved(0, 1);
+
+      final ReplayTarget target = new ReplayTarget(list(4));
+      batch.dispatch(target);
+      assertEquals(1, target.calls);
+      assertTrue(target.dataSetChanged);
+
+      // Dispatching empties the batch
+      final ReplayTarget next = new ReplayTarget(list(4));
+      batch.dispatch(next);
+      assertEquals(0, next.calls);
+   }
+
+   private static void addChange(Map<Integer, Set<Object>> changes, int id, Object payload) {
+      Set<Object> payloads = changes.get(id);
+      if (payloads == null) {
+         payloads = new HashSet<>();
+         changes.put(id, payloads);
+      }
+      payloads.add(payload);
+   }
+
+   private static List<Integer> list(int size) {
+      final List<Integer> items = new ArrayList<>();
+      for (int i = 0; i < size; ++i) {
+         items.add(i);
+      }
+      return items;
+   }
+
+   private static class ReplayTarget implements UpdateBatch.Target {
+      final List<Integer> items;
+      final Map<Integer, Set<Object>> changes = new HashMap<>();
+      boolean dataSetChanged;
+      int calls;
+
+      ReplayTarget(List<Integer> original) {
+         items = new ArrayList<>(original);
+      }
+
+      @Override
+      public void onDataSetChanged() {
+         dataSetChanged = true;
+         calls++;
+      }
+
+      @Override
+      public void onItemRangeChanged(int positionStart, int count, Object payload) {
+         assertTrue(count > 0 && positionStart >= 0 && positionStart + count <= items.size());
+         for (int i = positionStart; i < positionStart + count; ++i) {
+            addChange(changes, items.get(i), payload);
+         }
+         calls++;
+      }
+
+      @Override
+      public void onItemRangeInserted(int positionStart, int count) {
+         assertTrue(count > 0 && positionStart >= 0 && positionStart <= items.size());
+         for (int i = 0; i < count; ++i) {
+            items.add(positionStart, NEW_ITEM);
+         }
+         calls++;
+      }
+
+      @Override
+      public void onItemRangeRemoved(int positionStart, int count) {
+         assertTrue(count > 0 && positionStart >= 0 && positionStart + count <= items.size());
+         for (int i = 0; i < count; ++i) {
+            items.remove(positionStart);
+         }
+         calls++;
+      }
+
+      @Override
+      public void onItemMoved(int fromPosition, int toPosition) {
+         items.add(toPosition, items.remove(fromPosition));
+         calls++;
+      }
+   }
+}
@@ -0,0 +1,94 @@
+package com.codewaves.stickyheadergrid;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares {@link ViewTypeCache} against a map of positions to types, with positions and
+ * invalidated ranges crossing page boundaries.
+ */
+public class ViewTypeCacheTest {
+   private static final int SEEDS = 20;
+   private static final int OPERATIONS = 300;
+   // Several pages of 1024 positions
+   private static final int MAX_POSITION = 5000;
+
+   @Test
+   public void matchesMap() {
+      for (int seed = 0; seed < SEEDS; ++seed) {
+         final Random random = new Random(seed);
+         final ViewTypeCache cache = new ViewTypeCache();
+         final Map<Integer, Integer> types = new HashMap<>();
+
+         for (int i = 0; i < OPERATIONS; ++i) {
+            final int operation = random.nextInt(10);
+            if (operation < 6) {
+               final int position = random.nextInt(MAX_POSITION);
+               final int type = random.nextInt(1000);
+               cache.put(position, type);
+               types.put(position, type);
+            }
+            else if (operation < 8) {
+               final int start = random.nextInt(MAX_POSITION);
+               final int count = random.nextInt(3000);
+               cache.invalidate(start, count);
+               removeRange(types, start, start + count);
+            }
+            else if (operation == 8) {
+               final int start = random.nextInt(MAX_POSITION + 1000);
+               cache.invalidateFrom(start);
+               removeRange(types, start, Integer.MAX_VALUE);
+            }
+            else if (random.nextInt(5) == 0) {
+               cache.clear();
+               types.clear();
+            }
+
+            if (i % 30 == 0 || i == OPERATIONS - 1) {
+               assertMatches(types, cache);
+            }
+         }
+      }
+   }
+
+   @Test
+   public void pageBoundaries() {
+      final ViewTypeCache cache = new ViewTypeCache();
+      for (int position = 1020; position < 2060; ++position) {
+         cache.put(position, position);
+      }
+
+      cache.invalidate(1023, 2);
+      assertEquals(1022, cache.get(1022));
+      assertEquals(ViewTypeCache.NO_TYPE, cache.get(1023));
+      assertEquals(ViewTypeCache.NO_TYPE, cache.get(1024));
+      assertEquals(1025, cache.get(1025));
+
+      cache.invalidateFrom(2048);
+      assertEquals(2047, cache.get(2047));
+      assertEquals(ViewTypeCache.NO_TYPE, cache.get(2048));
+      assertEquals(ViewTypeCache.NO_TYPE, cache.get(2059));
+   }
+
+   private static void removeRange(Map<Integer, Integer> types, int start, int end) {
+      for (Iterator<Integer> it = types.keySet().iterator(); it.hasNext(); ) {
+         final int position = it.next();
+         if (position >= start && position < end) {
+            it.remove();
+         }
+      }
+   }
+
+   private static void assertMatches(Map<Integer, Integer> types, ViewTypeCache cache) {
+      for (int position = 0; position < MAX_POSITION + 1000; ++position) {
+         final Integer type = types.get(position);
+         assertEquals("position " + position, type != null ? type : ViewTypeCache.NO_TYPE, cache.get(position));
+      }
+   }
+}